@@ -0,0 +1,111 @@
+package com.seng4400.bench;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.seng4400.json.AnswerWriter;
+import com.seng4400.prime.IntSlice;
+import com.seng4400.prime.PrimeCache;
+import com.seng4400.prime.PrimeEngines;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * Benchmark measuring the bytes allocated on the heap to answer one record, from the lookup of the primes up to the
+ * finished POST body in a reused buffer. The boxed path rebuilds what the Client did before primes were kept as
+ * primitive ints, an ArrayList of Integer turned into a JSON tree and then into a string, and the primitive path is
+ * what the Client does now. Allocation is read from the thread allocation counter of the HotSpot JVM.
+ *
+ * Run with:
+ *
+ *     mvn -Pjmh compile exec:java -Dexec.mainClass=com.seng4400.bench.AllocationBenchmark
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class AllocationBenchmark {
+
+    private static final int[] LIMITS = {1_000, 100_000, 1_000_000};
+    private static final int WARM_UP = 20;
+    private static final int ROUNDS = 50;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final PrimeCache CACHE = new PrimeCache(PrimeEngines.defaultEngine(), 1_000_000);
+    private static final AnswerWriter WRITER = new AnswerWriter(false);
+    private static final ByteArrayOutputStream BODY = new ByteArrayOutputStream();
+
+    /**
+     * Driver function printing the bytes allocated per record by each path for every limit.
+     *
+     * @param args              Unused
+     * @throws IOException      Throws if the body cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        CACHE.getPrimes(LIMITS[LIMITS.length - 1]);                             // Fill the cache up front
+        System.out.printf("%10s %18s %18s%n", "max", "boxed bytes/rec", "primitive bytes/rec");
+        for (int max : LIMITS) {
+            long boxed = measure(max, true);
+            long primitive = measure(max, false);
+            System.out.printf("%10d %18d %18d%n", max, boxed, primitive);
+        }
+    }
+
+    /**
+     * Function returns the average number of bytes allocated to answer a record with the given max.
+     *
+     * @param max               The value to specify the max range
+     * @param boxed             True to measure the boxed path, false for the primitive path
+     * @return                  The bytes allocated per record
+     */
+    private static long measure(int max, boolean boxed) throws IOException {
+        long sink = 0;
+        for (int i = 0; i < WARM_UP; i++)
+            sink += boxed ? boxedRecord(max) : primitiveRecord(max);
+        long threadId = Thread.currentThread().getId();
+        long before = THREADS.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ROUNDS; i++)
+            sink += boxed ? boxedRecord(max) : primitiveRecord(max);
+        long after = THREADS.getThreadAllocatedBytes(threadId);
+        if (sink == 42)                                                         // Keep the results alive
+            System.out.print("");
+        return (after - before) / ROUNDS;
+    }
+
+    /**
+     * Function answers a record the way the Client did with a list of boxed primes and Gson.
+     */
+    private static long boxedRecord(int max) {
+        IntSlice primes = CACHE.getPrimes(max);
+        ArrayList<Integer> list = new ArrayList<>();
+        for (int i = 0; i < primes.length(); i++)
+            list.add(primes.get(i));
+        GsonBuilder gsonBuilder = new GsonBuilder();
+        JsonObject jsonObj = new JsonObject();
+        JsonArray array = gsonBuilder.create().toJsonTree(list).getAsJsonArray();
+        JsonElement answer = gsonBuilder.create().toJsonTree(array);
+        JsonElement time = gsonBuilder.create().toJsonTree(0L);
+        jsonObj.add("answer", answer);
+        jsonObj.add("time_taken", time);
+        Gson gson = gsonBuilder.create();
+        return gson.toJson(jsonObj).getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Function answers a record the way the Client does with a slice of the cache and the answer writer.
+     */
+    private static long primitiveRecord(int max) throws IOException {
+        IntSlice primes = CACHE.getPrimes(max);
+        BODY.reset();
+        WRITER.write(BODY, primes, 0L);
+        return BODY.size();
+    }
+}
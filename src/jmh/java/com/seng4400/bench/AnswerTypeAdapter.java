@@ -0,0 +1,94 @@
+package com.seng4400.bench;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.seng4400.json.Answer;
+import com.seng4400.json.Breakdown;
+import com.seng4400.json.Schema;
+import com.seng4400.prime.IntSlice;
+
+import java.io.IOException;
+
+/**
+ * Gson type adapter writing an answer as {"answer":[...],"time_taken":n}, the same layout the answer writer produces,
+ * including the fields added by the schema and breakdown of the answer. Reading takes the finest time taken found. The
+ * Client writes answers with the answer writer, so the adapter is only kept for the Gson the serialization benchmark
+ * compares against.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class AnswerTypeAdapter extends TypeAdapter<Answer> {
+
+    private final IntSliceTypeAdapter primesAdapter = new IntSliceTypeAdapter();
+
+    @Override
+    public void write(JsonWriter out, Answer answer) throws IOException {
+        if (answer == null) {
+            out.nullValue();
+            return;
+        }
+        long startTime = System.nanoTime();
+        out.beginObject();
+        out.name("answer");
+        primesAdapter.write(out, answer.getPrimes());
+        out.name("time_taken").value(answer.getTimeTaken());
+        Schema schema = answer.getSchema();
+        if (schema != Schema.V1)
+            out.name(schema.getTimeTakenField()).value(schema.convert(answer.getTimeTakenNanos()));
+        Breakdown breakdown = answer.getBreakdown();
+        if (breakdown != null) {
+            long serializeNanos = System.nanoTime() - startTime;
+            out.name("breakdown").beginObject();
+            out.name("compute_" + schema.getUnit()).value(schema.convert(breakdown.getComputeNanos()));
+            out.name("cache_" + schema.getUnit()).value(schema.convert(breakdown.getCacheNanos()));
+            out.name("serialize_" + schema.getUnit()).value(schema.convert(serializeNanos));
+            out.endObject();
+        }
+        out.endObject();
+    }
+
+    @Override
+    public Answer read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        IntSlice primes = IntSlice.empty();
+        long timeTakenNanos = 0;
+        Schema schema = Schema.V1;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "answer":
+                    primes = primesAdapter.read(in);
+                    break;
+                case "time_taken":
+                    if (schema == Schema.V1)
+                        timeTakenNanos = in.nextLong() * 1_000_000;
+                    else
+                        in.skipValue();
+                    break;
+                case "time_taken_us":
+                    if (schema != Schema.V3) {
+                        schema = Schema.V2;
+                        timeTakenNanos = in.nextLong() * 1_000;
+                    } else {
+                        in.skipValue();
+                    }
+                    break;
+                case "time_taken_ns":
+                    schema = Schema.V3;
+                    timeTakenNanos = in.nextLong();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return Answer.ofNanos(primes, timeTakenNanos, null, schema, null);
+    }
+}
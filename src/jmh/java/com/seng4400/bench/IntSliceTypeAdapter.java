@@ -0,0 +1,52 @@
+package com.seng4400.bench;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.seng4400.prime.IntSlice;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Gson type adapter writing a slice of ints as a JSON array of numbers. Gson would otherwise fall back to reflection
+ * over the fields of the slice, so the adapter is used by the answer type adapter of the serialization benchmark.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class IntSliceTypeAdapter extends TypeAdapter<IntSlice> {
+
+    @Override
+    public void write(JsonWriter out, IntSlice slice) throws IOException {
+        if (slice == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        int length = slice.length();
+        for (int i = 0; i < length; i++)
+            out.value(slice.get(i));
+        out.endArray();
+    }
+
+    @Override
+    public IntSlice read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        int[] values = new int[16];
+        int length = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (length == values.length)
+                values = Arrays.copyOf(values, length * 2);
+            values[length++] = in.nextInt();
+        }
+        in.endArray();
+        return new IntSlice(values, length);
+    }
+}
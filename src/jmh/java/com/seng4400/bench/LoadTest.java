@@ -0,0 +1,589 @@
+package com.seng4400.bench;
+
+import com.seng4400.Client;
+import com.seng4400.config.Config;
+import com.seng4400.consumer.Limit;
+import com.seng4400.consumer.LimitDeserializer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * End to end load test of the Client that runs without a network. A stand-in consumer takes the place of Kafka and a
+ * stub HTTP server on the loopback address takes the place of the endpoint, so every stage of the Client runs as it
+ * does in production, the poll loop, the workers, the prime cache, the sink and the metrics, while the load and the
+ * behaviour of the endpoint are under control.
+ *
+ * Records are fed at the given rate, or as fast as the Client takes them, with limits drawn from a weighted list of
+ * values and ranges, such as "2-1000:0.9,1000000:0.1" for nine small requests to every large one. The stub endpoint
+ * waits for the given latency before it responds, and fails the given share of requests with a 500.
+ *
+ * When every record is answered, failed or rejected the test prints the records per second, the end to end latency
+ * read from the metrics of the Client, and the collections and pause time of the garbage collectors. Record timestamps
+ * are in milliseconds, so the end to end latency is only good to about a millisecond.
+ *
+ * Options are read the same way as the options of the Client, and every option other than those of the test is passed
+ * on to the Client:
+ *
+ * load.records         The number of records to feed, 100000 by default
+ * load.rate            The records fed per second, 0 by default to feed as fast as they are taken
+ * load.limits          The weighted limits of the records, "2-100000" by default
+ * load.partitions      The number of partitions the records are spread over, 8 by default
+ * load.latency         The milliseconds the endpoint waits before it responds, 0 by default
+ * load.error-rate      The share of requests the endpoint fails, 0 by default
+ * load.threads         The threads answering requests at the endpoint, 32 by default
+ * load.seed            The seed of the limits and the failures, random by default
+ *
+ * Run with, for example:
+ *
+ *     mvn -Pjmh compile exec:java -Dexec.mainClass=com.seng4400.bench.LoadTest \
+ *         -Dexec.args="--load.records=200000 --load.latency=20 --load.error-rate=0.01 --profile=throughput"
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class LoadTest {
+
+    private static final String TOPIC = "seng4400-load";
+    private static final String METRIC_PREFIX = "seng4400_";
+    private static final long SCRAPE_MILLIS = 200;
+
+    /**
+     * Driver function running the test and exiting once it is done, so that threads of a Client which failed do not
+     * keep the JVM alive.
+     *
+     * @param args                  The options of the test and of the Client
+     */
+    public static void main(String[] args) {
+        try {
+            run(args);
+        } catch (Exception e) {
+            System.err.println("Load test failed: " + e.getMessage());
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause())
+                System.err.println("  caused by " + cause);
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Method runs the Client against the stand-ins and prints the results.
+     *
+     * @param args                  The options of the test and of the Client
+     * @throws Exception            Throws if the stand-ins cannot be started or the Client fails
+     */
+    private static void run(String[] args) throws Exception {
+        Config config = Config.load(args);
+        if (!config.getArguments().isEmpty())
+            throw new IllegalArgumentException("Error. The load test sets the URL of the Client itself.");
+        int records = config.getInt("load.records", 100_000);
+        int rate = config.getInt("load.rate", 0);
+        LimitDistribution limits = LimitDistribution.parse(config.getString("load.limits", "2-100000"));
+        int partitions = config.getInt("load.partitions", 8);
+        long latency = config.getLong("load.latency", 0);
+        double errorRate = Double.parseDouble(config.getString("load.error-rate", "0"));
+        int threads = config.getInt("load.threads", 32);
+        long seed = config.getLong("load.seed", ThreadLocalRandom.current().nextLong());
+        if (records <= 0 || rate < 0 || partitions <= 0 || latency < 0 || threads <= 0
+                || errorRate < 0 || errorRate > 1)
+            throw new IllegalArgumentException("Error. Invalid load test options.");
+
+        StubEndpoint endpoint = new StubEndpoint(latency, errorRate, threads, seed);
+        int metricsPort = freePort();
+        StandInConsumer consumer = new StandInConsumer(config.getInt("consumer.max.poll.records", 10));
+
+        List<String> clientArgs = new ArrayList<>();
+        clientArgs.add("--console.mode=off");                                   // Overridable defaults
+        for (String arg : args)
+            clientArgs.add(arg);
+        clientArgs.add("--metrics.port=" + metricsPort);                        // Needed by the test
+        clientArgs.add("--metrics.host=127.0.0.1");
+        clientArgs.add("--http.auth=false");
+        clientArgs.add("--reply.mode=http");
+        clientArgs.add("--transactional=false");
+        clientArgs.add("--dlq.topic=");
+        clientArgs.add("--topic=" + TOPIC);
+        clientArgs.add(endpoint.getUrl());
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread client = new Thread(() -> {
+            try {
+                Client.run(clientArgs.toArray(new String[0]), consumer);
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        }, "client");
+        client.start();
+
+        List<TopicPartition> assignment = new ArrayList<>();
+        for (int i = 0; i < partitions; i++)
+            assignment.add(new TopicPartition(TOPIC, i));
+        consumer.assignOnPoll(assignment);
+
+        System.out.printf("%d records over %d partitions, limits %s, rate %s, endpoint latency %d ms, "
+                + "error rate %.3f%n", records, partitions, limits, rate == 0 ? "unbounded" : rate + "/s", latency,
+                errorRate);
+        Map<String, Double> metrics = awaitMetrics(metricsPort, failure);
+        while (!consumer.assignment().containsAll(assignment)) {                // Wait for the first poll
+            if (failure.get() != null)
+                throw new IllegalStateException("Error. Client failed to start.", failure.get());
+            Thread.sleep(10);
+        }
+        GcSnapshot gcBefore = GcSnapshot.take();
+        long start = System.nanoTime();
+        feed(consumer, assignment, records, rate, limits, new Random(seed), failure);
+        while (done(metrics) < records) {
+            if (failure.get() != null || !client.isAlive())
+                throw new IllegalStateException("Error. Client stopped before the load test finished.", failure.get());
+            Thread.sleep(SCRAPE_MILLIS);
+            metrics = scrape(metricsPort);
+        }
+        long elapsed = System.nanoTime() - start;
+        GcSnapshot gcAfter = GcSnapshot.take();
+
+        report(metrics, records, elapsed, endpoint.getRequests());
+        gcAfter.report(gcBefore, elapsed);
+
+        client.interrupt();
+        client.join(TimeUnit.SECONDS.toMillis(30));
+        endpoint.close();
+        if (failure.get() != null)
+            throw new IllegalStateException("Error. Client failed while shutting down.", failure.get());
+    }
+
+    /**
+     * Method adds the records to the consumer in turn over the partitions, holding to the rate when one is set.
+     *
+     * @param consumer              The consumer the Client reads from
+     * @param assignment            The partitions the records are spread over
+     * @param records               The number of records
+     * @param rate                  The records per second, or zero for no limit
+     * @param limits                The distribution the limits are drawn from
+     * @param random                The source of the limits
+     * @param failure               The failure of the Client, checked so that feeding stops when it fails
+     * @throws InterruptedException Throws if interrupted while holding to the rate
+     */
+    private static void feed(StandInConsumer consumer, List<TopicPartition> assignment, int records, int rate,
+                             LimitDistribution limits, Random random, AtomicReference<Throwable> failure)
+            throws InterruptedException {
+        LimitDeserializer deserializer = new LimitDeserializer();
+        long[] offsets = new long[assignment.size()];
+        long start = System.nanoTime();
+        for (int i = 0; i < records && failure.get() == null; i++) {
+            if (rate > 0) {
+                long due = start + i * TimeUnit.SECONDS.toNanos(1) / rate;
+                long wait = due - System.nanoTime();
+                if (wait > 0)
+                    TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            int partition = i % assignment.size();
+            byte[] value = Integer.toString(limits.next(random)).getBytes(StandardCharsets.US_ASCII);
+            consumer.addRecord(new ConsumerRecord<>(TOPIC, partition, offsets[partition]++,
+                    System.currentTimeMillis(), TimestampType.CREATE_TIME, -1, value.length, Integer.toString(i),
+                    deserializer.deserialize(TOPIC, value), new RecordHeaders(), Optional.empty()));
+        }
+    }
+
+    /**
+     * Function returns the number of records the Client has finished with, answered or rejected. A record whose
+     * answer failed is rejected to the dead letters as well, so it is counted once as rejected.
+     *
+     * @param metrics               The scraped metrics
+     * @return                      The number of finished records
+     */
+    private static long done(Map<String, Double> metrics) {
+        return (long) (metrics.getOrDefault(METRIC_PREFIX + "answers_total", 0.0)
+                + metrics.getOrDefault(METRIC_PREFIX + "rejected_total", 0.0));
+    }
+
+    /**
+     * Method prints the throughput and the end to end latency of the run.
+     *
+     * @param metrics               The metrics scraped at the end of the run
+     * @param records               The number of records fed
+     * @param elapsed               The nanoseconds from the first record until every record was finished
+     * @param requests              The number of requests the endpoint answered
+     */
+    private static void report(Map<String, Double> metrics, int records, long elapsed, long requests) {
+        String latency = METRIC_PREFIX + "end_to_end_seconds";
+        System.out.printf("%-24s %12.1f ms%n", "elapsed", elapsed / 1e6);
+        System.out.printf("%-24s %12.1f%n", "records/s", records / (elapsed / 1e9));
+        System.out.printf("%-24s %12.0f answers, %.0f failures, %.0f rejected, %d requests%n", "outcome",
+                metrics.getOrDefault(METRIC_PREFIX + "answers_total", 0.0),
+                metrics.getOrDefault(METRIC_PREFIX + "failures_total", 0.0),
+                metrics.getOrDefault(METRIC_PREFIX + "rejected_total", 0.0), requests);
+        String[] quantiles = {"0.5", "0.99", "0.999"};
+        String[] names = {"p50", "p99", "p999"};
+        for (int i = 0; i < quantiles.length; i++) {
+            Double seconds = metrics.get(latency + "{quantile=\"" + quantiles[i] + "\"}");
+            System.out.printf("%-24s %12.3f ms%n", "end to end " + names[i],
+                    seconds == null ? Double.NaN : seconds * 1e3);
+        }
+        System.out.printf("%-24s %12.3f ms%n", "end to end max", metrics.getOrDefault(latency + "_max", 0.0) * 1e3);
+    }
+
+    /**
+     * Function waits for the metrics server of the Client to answer, which happens once the Client has started.
+     *
+     * @param port                  The port of the metrics server
+     * @param failure               The failure of the Client, checked so that a failed start is not waited on
+     * @return                      The first scrape of the metrics
+     * @throws InterruptedException Throws if interrupted while waiting
+     */
+    private static Map<String, Double> awaitMetrics(int port, AtomicReference<Throwable> failure)
+            throws InterruptedException {
+        while (true) {
+            if (failure.get() != null)
+                throw new IllegalStateException("Error. Client failed to start.", failure.get());
+            try {
+                return scrape(port);
+            } catch (IOException e) {
+                Thread.sleep(SCRAPE_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Function reads the metrics of the Client in the Prometheus text format, keyed by the name and labels of each
+     * sample.
+     *
+     * @param port                  The port of the metrics server
+     * @return                      The value of every sample
+     * @throws IOException          Throws if the metrics cannot be read
+     */
+    private static Map<String, Double> scrape(int port) throws IOException {
+        HttpURLConnection connection =
+                (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/metrics").openConnection();
+        Map<String, Double> samples = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int split = line.lastIndexOf(' ');
+                if (line.startsWith("#") || split < 0)
+                    continue;
+                samples.put(line.substring(0, split), Double.parseDouble(line.substring(split + 1)));
+            }
+        } finally {
+            connection.disconnect();
+        }
+        return samples;
+    }
+
+    /**
+     * Function returns a port that was free a moment ago, for the metrics server of the Client.
+     *
+     * @return                      The port
+     * @throws IOException          Throws if no port can be bound
+     */
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Consumer standing in for Kafka, holding the records in memory. The records of each poll are held to the max
+     * poll records of the Client, and a poll with nothing to return waits for records to be added for up to its
+     * timeout rather than returning at once, so that the poll loop of the Client does not spin.
+     */
+    private static final class StandInConsumer extends MockConsumer<String, Limit> {
+
+        private final int maxPollRecords;
+        private final Object arrivals = new Object();
+        private long added;
+
+        StandInConsumer(int maxPollRecords) {
+            super(OffsetResetStrategy.EARLIEST);
+            this.maxPollRecords = maxPollRecords;
+        }
+
+        /**
+         * Method assigns the partitions to the Client at its next poll, as if the group had rebalanced. The Client
+         * subscribes before its first poll, so the assignment is made by that poll.
+         *
+         * @param partitions    The partitions to assign
+         */
+        synchronized void assignOnPoll(Collection<TopicPartition> partitions) {
+            Map<TopicPartition, Long> beginning = new HashMap<>();
+            for (TopicPartition partition : partitions)
+                beginning.put(partition, 0L);
+            updateBeginningOffsets(beginning);
+            schedulePollTask(() -> rebalance(partitions));
+        }
+
+        @Override
+        public synchronized void addRecord(ConsumerRecord<String, Limit> record) {
+            super.addRecord(record);
+            synchronized (arrivals) {
+                added++;
+                arrivals.notifyAll();
+            }
+        }
+
+        @Override
+        public ConsumerRecords<String, Limit> poll(Duration timeout) {
+            long deadline = System.nanoTime() + timeout.toNanos();
+            while (true) {
+                long seen;
+                synchronized (arrivals) {
+                    seen = added;
+                }
+                ConsumerRecords<String, Limit> records = take();
+                long remaining = deadline - System.nanoTime();
+                if (!records.isEmpty() || remaining <= 0)
+                    return records;
+                synchronized (arrivals) {
+                    try {
+                        if (added == seen)
+                            TimeUnit.NANOSECONDS.timedWait(arrivals, remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return records;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Function takes the records waiting on the partitions that are not paused, up to the max poll records. The
+         * records over the max are put back and the partitions moved back to them, to be returned by a later poll.
+         *
+         * @return              The records of the poll
+         */
+        private synchronized ConsumerRecords<String, Limit> take() {
+            ConsumerRecords<String, Limit> records = super.poll(Duration.ZERO);
+            if (records.count() <= maxPollRecords)
+                return records;
+            Map<TopicPartition, List<ConsumerRecord<String, Limit>>> kept = new HashMap<>();
+            int count = 0;
+            for (TopicPartition partition : records.partitions()) {
+                List<ConsumerRecord<String, Limit>> list = records.records(partition);
+                int keep = Math.min(list.size(), maxPollRecords - count);
+                if (keep > 0)
+                    kept.put(partition, list.subList(0, keep));
+                count += keep;
+                if (keep == list.size())
+                    continue;
+                seek(partition, list.get(keep).offset());
+                for (ConsumerRecord<String, Limit> record : list.subList(keep, list.size()))
+                    super.addRecord(record);
+            }
+            return new ConsumerRecords<>(kept);
+        }
+    }
+
+    /**
+     * HTTP server on the loopback address standing in for the endpoint. Every request is read in full, held for the
+     * latency and then answered with an empty 200, or with a 500 for the given share of requests.
+     */
+    private static final class StubEndpoint {
+
+        private final HttpServer server;
+        private final ExecutorService executor;
+        private final long latency;
+        private final double errorRate;
+        private final Random random;
+        private final LongAdder requests = new LongAdder();
+
+        StubEndpoint(long latency, double errorRate, int threads, long seed) throws IOException {
+            this.latency = latency;
+            this.errorRate = errorRate;
+            this.random = new Random(seed);
+            this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+            this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "stub-endpoint");
+                thread.setDaemon(true);
+                return thread;
+            });
+            server.createContext("/", this::handle);
+            server.setExecutor(executor);
+            server.start();
+        }
+
+        /**
+         * Method answers one request.
+         *
+         * @param exchange      The request and its response
+         * @throws IOException  Throws if the response cannot be written
+         */
+        private void handle(HttpExchange exchange) throws IOException {
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] buffer = new byte[8192];
+                while (in.read(buffer) >= 0) {
+                    // Read the whole body as the endpoint would
+                }
+                if (latency > 0)
+                    Thread.sleep(latency);
+                boolean fail;
+                synchronized (random) {
+                    fail = random.nextDouble() < errorRate;
+                }
+                requests.increment();
+                exchange.sendResponseHeaders(fail ? 500 : 200, -1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        }
+
+        String getUrl() {
+            return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        }
+
+        long getRequests() {
+            return requests.sum();
+        }
+
+        void close() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Weighted list of limits, each either a single value or a range drawn from uniformly.
+     */
+    private static final class LimitDistribution {
+
+        private final String spec;
+        private final int[] lows;
+        private final int[] highs;
+        private final double[] cumulative;
+
+        private LimitDistribution(String spec, int[] lows, int[] highs, double[] cumulative) {
+            this.spec = spec;
+            this.lows = lows;
+            this.highs = highs;
+            this.cumulative = cumulative;
+        }
+
+        /**
+         * Function reads a list such as "2-1000:0.9,1000000:0.1", where an entry without a weight has a weight of one.
+         * If the list cannot be read, an illegal argument exception is thrown.
+         *
+         * @param spec          The list of limits
+         * @return              The distribution
+         */
+        static LimitDistribution parse(String spec) {
+            String[] entries = spec.split(",");
+            int[] lows = new int[entries.length];
+            int[] highs = new int[entries.length];
+            double[] cumulative = new double[entries.length];
+            double total = 0;
+            try {
+                for (int i = 0; i < entries.length; i++) {
+                    String[] parts = entries[i].trim().split(":");
+                    String[] range = parts[0].trim().split("-");
+                    lows[i] = Integer.parseInt(range[0].trim());
+                    highs[i] = range.length > 1 ? Integer.parseInt(range[1].trim()) : lows[i];
+                    double weight = parts.length > 1 ? Double.parseDouble(parts[1].trim()) : 1;
+                    if (parts.length > 2 || range.length > 2 || highs[i] < lows[i] || weight < 0)
+                        throw new IllegalArgumentException();
+                    total += weight;
+                    cumulative[i] = total;
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Error. Invalid load.limits: " + spec);
+            }
+            if (total <= 0)
+                throw new IllegalArgumentException("Error. Invalid load.limits: " + spec);
+            for (int i = 0; i < cumulative.length; i++)
+                cumulative[i] /= total;
+            return new LimitDistribution(spec, lows, highs, cumulative);
+        }
+
+        /**
+         * Function draws the next limit.
+         *
+         * @param random        The source of the draw
+         * @return              The limit
+         */
+        int next(Random random) {
+            double draw = random.nextDouble();
+            int entry = 0;
+            while (entry < cumulative.length - 1 && draw >= cumulative[entry])
+                entry++;
+            return lows[entry] + (int) (random.nextDouble() * ((long) highs[entry] - lows[entry] + 1));
+        }
+
+        @Override
+        public String toString() {
+            return spec;
+        }
+    }
+
+    /**
+     * The collections and collection time of every garbage collector at one moment, along with the heap in use.
+     */
+    private static final class GcSnapshot {
+
+        private final Map<String, long[]> collectors;
+        private final long heapUsed;
+
+        private GcSnapshot(Map<String, long[]> collectors, long heapUsed) {
+            this.collectors = collectors;
+            this.heapUsed = heapUsed;
+        }
+
+        static GcSnapshot take() {
+            Map<String, long[]> collectors = new HashMap<>();
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+                collectors.put(gc.getName(), new long[] {gc.getCollectionCount(), gc.getCollectionTime()});
+            return new GcSnapshot(collectors, ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+        }
+
+        /**
+         * Method prints the collections made and the time spent collecting since the earlier snapshot.
+         *
+         * @param before        The snapshot taken at the start of the run
+         * @param elapsed       The nanoseconds between the snapshots
+         */
+        void report(GcSnapshot before, long elapsed) {
+            long totalMillis = 0;
+            for (Map.Entry<String, long[]> entry : collectors.entrySet()) {
+                long[] start = before.collectors.getOrDefault(entry.getKey(), new long[2]);
+                long count = entry.getValue()[0] - start[0];
+                long millis = entry.getValue()[1] - start[1];
+                totalMillis += millis;
+                System.out.printf("%-24s %12d collections %8d ms%n", "gc " + entry.getKey(), count, millis);
+            }
+            System.out.printf("%-24s %12.2f %%%n", "gc time", 100.0 * totalMillis / (elapsed / 1e6));
+            System.out.printf("%-24s %12.1f MB%n", "heap used", heapUsed / 1e6);
+        }
+    }
+}
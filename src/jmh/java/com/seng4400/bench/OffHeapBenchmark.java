@@ -0,0 +1,134 @@
+package com.seng4400.bench;
+
+import com.seng4400.prime.IntSlice;
+import com.seng4400.prime.OffHeapPrimeTable;
+import com.seng4400.prime.PrimeCache;
+import com.seng4400.prime.PrimeEngines;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Benchmark comparing a prime table held on the heap with one held off the heap. Each table is filled to the same
+ * limit and then serves a run of lookups at random limits, while every lookup also allocates a buffer the size of a
+ * small answer so that the collector runs as it would in the Client. The benchmark prints the heap in use after a full
+ * collection, the memory held off the heap, the collections and collection time during the run, and the time of a
+ * full collection with the table live, which grows with the size of the heap the collector has to copy.
+ *
+ * Both tables run in the same JVM one after the other, with a full collection in between, so the heap should be sized
+ * to hold the heap table, for example with -Xmx1g for a limit of 100M.
+ *
+ * Run with, where the arguments are the limit of the table and the number of lookups:
+ *
+ *     mvn -Pjmh compile exec:java -Dexec.mainClass=com.seng4400.bench.OffHeapBenchmark \
+ *         -Dexec.args="100000000 200000"
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class OffHeapBenchmark {
+
+    private static final int ANSWER_BYTES = 16 * 1024;
+
+    /**
+     * Driver function printing the memory and collections of each table.
+     *
+     * @param args          The limit of the table and the number of lookups
+     */
+    public static void main(String[] args) {
+        int limit = args.length > 0 ? Integer.parseInt(args[0]) : 100_000_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        System.out.printf("table up to %d, %d lookups%n", limit, lookups);
+        System.out.printf("%-10s %12s %12s %12s %10s %12s %14s%n", "table", "heap MB", "direct MB", "lookups/s",
+                "gcs", "gc ms", "full gc ms");
+        run("heap", limit, lookups, null);
+        run("off-heap", limit, lookups, new OffHeapPrimeTable(OffHeapPrimeTable.capacityFor(limit)));
+    }
+
+    /**
+     * Method fills a table, runs the lookups against it and prints the results.
+     *
+     * @param name          The name of the table
+     * @param limit         The limit the table is filled to
+     * @param lookups       The number of lookups
+     * @param offHeap       The off heap table, or null to hold the table on the heap
+     */
+    private static void run(String name, int limit, int lookups, OffHeapPrimeTable offHeap) {
+        fullCollection();
+        PrimeCache cache = new PrimeCache(PrimeEngines.defaultEngine(), limit, null, offHeap);
+        cache.getPrimes(limit);                                                 // Fill the table up front
+        fullCollection();
+        long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        long direct = directBytes();
+
+        long collectionsBefore = collections();
+        long timeBefore = collectionMillis();
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            IntSlice primes = cache.getPrimes(ThreadLocalRandom.current().nextInt(2, limit + 1));
+            byte[] answer = new byte[ANSWER_BYTES];                             // Stands in for the answer body
+            answer[i % ANSWER_BYTES] = (byte) primes.get(primes.length() - 1);
+            checksum += answer[i % ANSWER_BYTES] + primes.length();
+        }
+        long elapsed = System.nanoTime() - start;
+        long collections = collections() - collectionsBefore;
+        long gcMillis = collectionMillis() - timeBefore;
+        long fullStart = System.nanoTime();
+        fullCollection();
+        long fullMillis = (System.nanoTime() - fullStart) / 1_000_000;
+
+        System.out.printf("%-10s %12.1f %12.1f %12.0f %10d %12d %14d%n", name, heapUsed / 1e6, direct / 1e6,
+                lookups / (elapsed / 1e9), collections, gcMillis, fullMillis);
+        if (checksum == 42)
+            System.out.println();                                               // Keep the lookups from being removed
+        cache.close();
+    }
+
+    /**
+     * Method runs a full collection, which the default collectors finish before returning.
+     */
+    private static void fullCollection() {
+        System.gc();
+    }
+
+    /**
+     * Function returns the collections made so far by every collector.
+     *
+     * @return              The number of collections
+     */
+    private static long collections() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            count += Math.max(0, gc.getCollectionCount());
+        return count;
+    }
+
+    /**
+     * Function returns the time spent collecting so far by every collector.
+     *
+     * @return              The collection time in milliseconds
+     */
+    private static long collectionMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            millis += Math.max(0, gc.getCollectionTime());
+        return millis;
+    }
+
+    /**
+     * Function returns the memory held by direct buffers.
+     *
+     * @return              The bytes held off the heap by direct buffers
+     */
+    private static long directBytes() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct"))
+                return pool.getMemoryUsed();
+        }
+        return 0;
+    }
+}
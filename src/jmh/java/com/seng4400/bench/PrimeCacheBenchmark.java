@@ -0,0 +1,58 @@
+package com.seng4400.bench;
+
+import com.seng4400.prime.IntSlice;
+import com.seng4400.prime.PrimeCache;
+import com.seng4400.prime.PrimeEngines;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of a lookup in the prime cache once it is warm, which is the cost every record pays after the first
+ * record with the largest max. The cache is filled to the largest limit up front so each call is a binary search for
+ * the cutoff and a slice over the shared table.
+ *
+ * Run with:
+ *
+ *     mvn -Pjmh verify
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PrimeCacheBenchmark {
+
+    private static final int CEILING = 100_000_000;
+
+    @Param({"10", "1000", "100000", "1000000", "100000000"})
+    public int limit;
+
+    private PrimeCache cache;
+
+    @Setup
+    public void setUp() {
+        cache = new PrimeCache(PrimeEngines.defaultEngine(), CEILING);
+        cache.getPrimes(CEILING);
+    }
+
+    @Benchmark
+    public IntSlice getPrimes() {
+        return cache.getPrimes(limit);
+    }
+}
@@ -0,0 +1,61 @@
+package com.seng4400.bench;
+
+import com.seng4400.prime.IntSlice;
+import com.seng4400.prime.ParallelSieveEngine;
+import com.seng4400.prime.PrimeEngine;
+import com.seng4400.prime.PrimeEngines;
+import com.seng4400.prime.SegmentedSieveEngine;
+import com.seng4400.prime.SieveEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the sieve engines, finding every prime up to the limit from scratch on each call. The trial
+ * division engine is measured on its own in {@link TrialDivisionBenchmark} since it cannot reach the largest limit in
+ * a reasonable time.
+ *
+ * Run with:
+ *
+ *     mvn -Pjmh verify
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PrimeEngineBenchmark {
+
+    @Param({SieveEngine.NAME, SegmentedSieveEngine.NAME, ParallelSieveEngine.NAME})
+    public String engine;
+
+    @Param({"10", "1000", "100000", "1000000", "100000000"})
+    public int limit;
+
+    private PrimeEngine primeEngine;
+
+    @Setup
+    public void setUp() {
+        primeEngine = PrimeEngines.forName(engine, 0, ParallelSieveEngine.DEFAULT_THRESHOLD);
+    }
+
+    @Benchmark
+    public IntSlice getPrimes() {
+        return primeEngine.getPrimes(limit);
+    }
+}
@@ -0,0 +1,132 @@
+package com.seng4400.bench;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.seng4400.json.Answer;
+import com.seng4400.json.AnswerWriter;
+import com.seng4400.prime.IntSlice;
+import com.seng4400.prime.PrimeCache;
+import com.seng4400.prime.PrimeEngines;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * Micro benchmark measuring the cost of serializing one answer of 1,000, 78,498 and 5,000,000 primes. Three serializers
+ * are compared, a new Gson built for every record over a boxed list as the Client used to do, one shared Gson with the
+ * answer and int slice type adapters, and the answer writer. Every serializer writes to a stream that throws the bytes
+ * away so that only the serialization is timed.
+ *
+ * Run with:
+ *
+ *     mvn -Pjmh compile exec:java -Dexec.mainClass=com.seng4400.bench.SerializationBenchmark
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class SerializationBenchmark {
+
+    /**
+     * The values whose primes are serialized, the 1,000th, 78,498th and 5,000,000th primes.
+     */
+    private static final int[] LIMITS = {7_919, 1_000_000, 86_028_121};
+
+    private static final long BUDGET_NANOS = 2_000_000_000L;
+
+    private static final Gson GSON = new GsonBuilder()
+            .disableHtmlEscaping()
+            .registerTypeAdapter(Answer.class, new AnswerTypeAdapter())
+            .create();
+
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    /**
+     * Driver function printing the average time to serialize one answer with each serializer for every size.
+     *
+     * @param args              Unused
+     * @throws IOException      Throws if an answer cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        PrimeCache cache = new PrimeCache(PrimeEngines.defaultEngine(), LIMITS[LIMITS.length - 1]);
+        System.out.printf("%10s %16s %16s %16s%n", "primes", "per-record gson", "shared gson", "answer writer");
+        for (int max : LIMITS) {
+            Answer answer = new Answer(cache.getPrimes(max), 0L);
+            double legacy = measure(() -> legacy(answer));
+            double shared = measure(() -> shared(answer));
+            AnswerWriter writer = new AnswerWriter(false);
+            double streamed = measure(() -> writer.write(DISCARD, answer));
+            System.out.printf("%10d %13.3f ms %13.3f ms %13.3f ms%n", answer.getPrimes().length(),
+                    legacy / 1e6, shared / 1e6, streamed / 1e6);
+        }
+    }
+
+    /**
+     * Function runs the task repeatedly for a fixed budget after a warm up and returns the average time of a run.
+     *
+     * @param task              The serialization to time
+     * @return                  The average time in nanoseconds
+     */
+    private static double measure(Task task) throws IOException {
+        for (long end = System.nanoTime() + BUDGET_NANOS / 2; System.nanoTime() < end; )
+            task.run();                                                         // Warm up
+        int runs = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            task.run();
+            runs++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < BUDGET_NANOS);
+        return (double) elapsed / runs;
+    }
+
+    /**
+     * Method serializes the answer the way the Client used to, creating a Gson for each part of the record.
+     */
+    private static void legacy(Answer answer) throws IOException {
+        IntSlice primes = answer.getPrimes();
+        ArrayList<Integer> list = new ArrayList<>();
+        for (int i = 0; i < primes.length(); i++)
+            list.add(primes.get(i));
+        GsonBuilder gsonBuilder = new GsonBuilder();
+        JsonObject jsonObj = new JsonObject();
+        JsonArray array = gsonBuilder.create().toJsonTree(list).getAsJsonArray();
+        JsonElement element = gsonBuilder.create().toJsonTree(array);
+        JsonElement time = gsonBuilder.create().toJsonTree(answer.getTimeTaken());
+        jsonObj.add("answer", element);
+        jsonObj.add("time_taken", time);
+        DISCARD.write(jsonObj.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Method serializes the answer with one shared Gson instance and its registered adapter.
+     */
+    private static void shared(Answer answer) throws IOException {
+        Writer writer = new OutputStreamWriter(DISCARD, StandardCharsets.UTF_8);
+        GSON.toJson(answer, Answer.class, writer);
+        writer.flush();
+    }
+
+    /**
+     * A serialization that can be timed.
+     */
+    private interface Task {
+        void run() throws IOException;
+    }
+}
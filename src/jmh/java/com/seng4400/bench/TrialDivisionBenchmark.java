@@ -0,0 +1,47 @@
+package com.seng4400.bench;
+
+import com.seng4400.prime.IntSlice;
+import com.seng4400.prime.TrialDivisionEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the original trial division engine, kept as the baseline the sieves are compared against. The
+ * limit stops at 1M, a single call at 100M takes minutes so it is left out.
+ *
+ * Run with:
+ *
+ *     mvn -Pjmh verify
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrialDivisionBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int limit;
+
+    private final TrialDivisionEngine engine = new TrialDivisionEngine();
+
+    @Benchmark
+    public IntSlice getPrimes() {
+        return engine.getPrimes(limit);
+    }
+}
@@ -0,0 +1,176 @@
+package com.seng4400.bench;
+
+import com.seng4400.consumer.VirtualThreadWorkers;
+import com.seng4400.http.EndpointClient;
+import com.seng4400.json.Answer;
+import com.seng4400.metrics.Histogram;
+import com.seng4400.prime.PrimeCache;
+import com.seng4400.prime.PrimeEngines;
+import com.seng4400.sink.EndpointSink;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Benchmark comparing the platform thread runtime with the virtual thread runtime when the endpoint is slow. Every
+ * record finds its primes and posts its answer through the endpoint sink, as the Client does with the virtual
+ * runtime, to a stub endpoint on the loopback address which holds each request for 200 ms. The platform runtime runs
+ * the records on a fixed pool of threads, the virtual runtime starts a virtual thread for each record. The connection
+ * pool of each runtime is sized to the records it can have in flight, as the Client sizes it. The virtual runtime is
+ * skipped when the JVM has no virtual threads.
+ *
+ * Run with, where the arguments are the number of records and the number of platform threads:
+ *
+ *     mvn -Pjmh compile exec:java -Dexec.mainClass=com.seng4400.bench.VirtualThreadBenchmark \
+ *         -Dexec.args="2000 8"
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class VirtualThreadBenchmark {
+
+    private static final long ENDPOINT_MILLIS = 200;
+    private static final int MAX_LIMIT = 100_000;
+
+    private static final PrimeCache CACHE = new PrimeCache(PrimeEngines.defaultEngine(), MAX_LIMIT);
+
+    /**
+     * Driver function printing the time and throughput of each runtime.
+     *
+     * @param args                  The number of records and the number of platform threads
+     * @throws IOException          Throws if the stub endpoint cannot be started
+     * @throws InterruptedException Throws if interrupted while waiting for the records
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        CACHE.getPrimes(MAX_LIMIT);
+        StubEndpoint endpoint = new StubEndpoint(ENDPOINT_MILLIS);
+        try {
+            System.out.printf("%d records, stub endpoint latency %d ms%n", records, ENDPOINT_MILLIS);
+            report("platform (" + threads + " threads)", Executors.newFixedThreadPool(threads), threads, records,
+                    endpoint);
+            if (VirtualThreadWorkers.isAvailable())
+                report("virtual", VirtualThreadWorkers.newVirtualThreadPerTaskExecutor(), records, records, endpoint);
+            else
+                System.out.println("virtual: not available, needs Java 21 or later");
+        } finally {
+            endpoint.close();
+        }
+    }
+
+    /**
+     * Method runs every record on the executor, posting its answer through an endpoint sink, and prints how long they
+     * took and how many answers failed.
+     *
+     * @param name                  The name of the runtime
+     * @param executor              The executor running the records
+     * @param poolSize              The number of connections kept open to the endpoint
+     * @param records               The number of records
+     * @param endpoint              The stub endpoint the answers are posted to
+     * @throws IOException          Throws if the endpoint client cannot be created
+     * @throws InterruptedException Throws if interrupted while waiting for the records
+     */
+    private static void report(String name, ExecutorService executor, int poolSize, int records,
+                               StubEndpoint endpoint) throws IOException, InterruptedException {
+        LongAdder failures = new LongAdder();
+        try (EndpointSink sink = new EndpointSink(new EndpointClient(endpoint.getUrl(), poolSize, 60, 0,
+                new Histogram(), false))) {
+            CountDownLatch done = new CountDownLatch(records);
+            long start = System.nanoTime();
+            for (int i = 0; i < records; i++)
+                executor.execute(() -> {
+                    process(sink, failures);
+                    done.countDown();
+                });
+            done.await();
+            long elapsed = System.nanoTime() - start;
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+            System.out.printf("%-24s %10.1f ms %12.1f records/s %8d failed%n", name, elapsed / 1e6,
+                    records / (elapsed / 1e9), failures.sum());
+        }
+    }
+
+    /**
+     * Method processes one record the way the Client does, finding its primes and posting the answer on the calling
+     * thread.
+     *
+     * @param sink          The sink posting the answer
+     * @param failures      The count of answers that could not be posted
+     */
+    private static void process(EndpointSink sink, LongAdder failures) {
+        long start = System.nanoTime();
+        Answer answer = new Answer(CACHE.getPrimes(ThreadLocalRandom.current().nextInt(2, MAX_LIMIT)),
+                (System.nanoTime() - start) / 1_000_000);
+        sink.submit(answer, (posted, error) -> {
+            if (error != null)
+                failures.increment();
+        });
+    }
+
+    /**
+     * HTTP server on the loopback address standing in for the endpoint. Every request is read in full, held for the
+     * latency and then answered with an empty 200. Each request is handled on a thread of its own, so the endpoint is
+     * never the bottleneck.
+     */
+    private static final class StubEndpoint {
+
+        private final HttpServer server;
+        private final ExecutorService executor;
+        private final long latency;
+
+        StubEndpoint(long latency) throws IOException {
+            this.latency = latency;
+            this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+            this.executor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "stub-endpoint");
+                thread.setDaemon(true);
+                return thread;
+            });
+            server.createContext("/", this::handle);
+            server.setExecutor(executor);
+            server.start();
+        }
+
+        /**
+         * Method answers one request.
+         *
+         * @param exchange      The request and its response
+         * @throws IOException  Throws if the response cannot be written
+         */
+        private void handle(HttpExchange exchange) throws IOException {
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] buffer = new byte[8192];
+                while (in.read(buffer) >= 0) {
+                    // Read the whole body as the endpoint would
+                }
+                Thread.sleep(latency);
+                exchange.sendResponseHeaders(200, -1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        }
+
+        String getUrl() {
+            return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        }
+
+        void close() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
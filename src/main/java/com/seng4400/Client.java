@@ -1,23 +1,75 @@
 package com.seng4400;
 
-import com.google.api.client.http.ByteArrayContent;
-import com.google.api.client.http.GenericUrl;
-import com.google.api.client.http.HttpRequest;
-import com.google.api.client.http.HttpTransport;
-import com.google.api.client.http.javanet.NetHttpTransport;
-import com.google.auth.http.HttpCredentialsAdapter;
-import com.google.auth.oauth2.GoogleCredentials;
-import com.google.auth.oauth2.IdTokenCredentials;
-import com.google.auth.oauth2.IdTokenProvider;
-import com.google.gson.*;
+import com.seng4400.config.Config;
+import com.seng4400.console.ConsoleOutput;
+import com.seng4400.consumer.CommittingRebalanceListener;
+import com.seng4400.consumer.Limit;
+import com.seng4400.consumer.LimitDeserializer;
+import com.seng4400.consumer.OffsetTracker;
+import com.seng4400.consumer.PartitionWorkers;
+import com.seng4400.consumer.RecordExecutor;
+import com.seng4400.consumer.VirtualThreadWorkers;
+import com.seng4400.http.BatchContent;
+import com.seng4400.http.EndpointClient;
+import com.seng4400.json.Answer;
+import com.seng4400.json.AnswerSerializer;
+import com.seng4400.json.Breakdown;
+import com.seng4400.json.Schema;
+import com.seng4400.metrics.Histogram;
+import com.seng4400.metrics.MetricsRegistry;
+import com.seng4400.metrics.MetricsServer;
+import com.seng4400.metrics.TimedDeserializer;
+import com.seng4400.metrics.TimedSerializer;
+import com.seng4400.prime.CoalescedBatch;
+import com.seng4400.prime.OffHeapPrimeTable;
+import com.seng4400.prime.PrimeCache;
+import com.seng4400.prime.PrimeEngine;
+import com.seng4400.prime.PrimeEngines;
+import com.seng4400.prime.PrimeFile;
+import com.seng4400.sink.AnswerSink;
+import com.seng4400.sink.AsyncEndpointSink;
+import com.seng4400.sink.BatchingEndpointSink;
+import com.seng4400.sink.DeadLetterSink;
+import com.seng4400.sink.EndpointSink;
+import com.seng4400.sink.FanOutSink;
+import com.seng4400.sink.KafkaDeadLetterSink;
+import com.seng4400.sink.KafkaReplySink;
+import com.seng4400.sink.LogDeadLetterSink;
+import com.seng4400.sink.RejectReason;
+import com.seng4400.sink.SendCallback;
+import com.seng4400.prime.ParallelSieveEngine;
 import org.apache.kafka.clients.consumer.*;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.AuthorizationException;
+import org.apache.kafka.common.errors.InterruptException;
+import org.apache.kafka.common.errors.OutOfOrderSequenceException;
+import org.apache.kafka.common.errors.ProducerFencedException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
 
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Client class used to take the role of the consumer or subscriber. Every message the Client receives from the Server
@@ -33,130 +85,980 @@ import java.util.Properties;
  */
 public class Client {
 
+    /**
+     * The engine used to find the prime numbers, selected with the engine option. Defaults to the parallel segmented
+     * sieve, "trial-division" selects the original reference implementation.
+     */
+    private final PrimeEngine engine;
+
+    /**
+     * The largest value that will be answered, set with the limit.max option. Records asking for a larger value are
+     * rejected to the dead letters.
+     */
+    private final int maxLimit;
+
+    /**
+     * The table of primes shared by every record, so that only requests above any previous max need to be sieved. The
+     * table is kept in the file set with the cache.file option, if any, so that it survives a restart, and is held off
+     * the heap in up to the bytes set with the cache.off-heap.bytes option, if any.
+     */
+    private final PrimeCache cache;
+
+    /**
+     * The largest number of connections kept open to the endpoint, set with the http.pool.size option. When records
+     * run on virtual threads each record in flight may post at once, so the pool defaults to the in flight limit.
+     */
+    private final int poolSize;
+
+    /**
+     * The seconds after which an idle connection to the endpoint is closed, set with the http.pool.idle option.
+     */
+    private final long poolIdleSeconds;
+
+    /**
+     * The seconds before expiry that the identification token is refreshed, set with the http.token.refresh-margin
+     * option.
+     */
+    private final long tokenRefreshMarginSeconds;
+
+    /**
+     * Whether requests to the endpoint carry an identification token, set with the http.auth option. Only turned off
+     * for a local endpoint, such as the one of the load test.
+     */
+    private final boolean authenticate;
+
+    /**
+     * The number of POST requests in flight at once, set with the http.concurrency option. Zero posts each answer on
+     * the consumer thread.
+     */
+    private final int concurrency;
+
+    /**
+     * The number of answers waiting to be posted before the consumer is paused, set with the http.queue option.
+     */
+    private final int queueSize;
+
+    /**
+     * The number of answers packed into one POST request, set with the batch.size option. Zero posts every answer on
+     * its own.
+     */
+    private final int batchSize;
+
+    /**
+     * The size in bytes at which a batch is sent before it is full, set with the batch.bytes option.
+     */
+    private final long batchBytes;
+
+    /**
+     * The milliseconds the first answer of a batch waits for more answers, set with the batch.linger option.
+     */
+    private final long batchLingerMillis;
+
+    /**
+     * The layout of a batch, "json" for a JSON array or "ndjson" for one answer per line, set with the batch.format
+     * option.
+     */
+    private final BatchContent.Format batchFormat;
+
+    /**
+     * The number of threads processing records, set with the workers option. Records of one partition are always
+     * processed by the same thread.
+     */
+    private final int workerThreads;
+
+    /**
+     * The number of records handed to the workers but not yet finished before the consumer is paused, set with the
+     * workers.max-in-flight option.
+     */
+    private final int maxInFlight;
+
+    /**
+     * The runtime the records are processed on, set with the runtime option to either "platform" or "virtual".
+     */
+    private final String runtime;
+
+    /**
+     * True if each record is processed on a virtual thread of its own, selected by setting the runtime option to
+     * "virtual". Falls back to the platform thread workers when the running JVM has no virtual threads.
+     */
+    private final boolean virtualThreads;
+
+    /**
+     * True if the records of a poll share the primes found for the largest value among them, turned off by setting
+     * the coalesce option to false.
+     */
+    private final boolean coalesce;
+
+    /**
+     * The topic rejected records are produced to, set with the dlq.topic option. When empty the rejected records are
+     * written to standard error.
+     */
+    private final String deadLetterTopic;
+
+    /**
+     * Where answers are delivered, set with the reply.mode option: "http" posts them to the endpoint, "kafka"
+     * publishes them to the reply topic and "both" does both.
+     */
+    private final String replyMode;
+
+    /**
+     * The topic answers are published to, set with the reply.topic option.
+     */
+    private final String replyTopic;
+
+    /**
+     * The milliseconds the reply producer waits for a batch to fill, set with the reply.linger option.
+     */
+    private final long replyLingerMillis;
+
+    /**
+     * The size in bytes of a reply producer batch, set with the reply.batch-bytes option.
+     */
+    private final int replyBatchBytes;
+
+    /**
+     * The compression of reply batches, set with the reply.compression option.
+     */
+    private final String replyCompression;
+
+    /**
+     * The size in bytes of the largest reply request, which must hold the largest answer, set with the
+     * reply.max-request-bytes option.
+     */
+    private final int replyMaxRequestBytes;
+
+    /**
+     * True if answers are published to the reply topic with exactly-once delivery, set with the transactional option.
+     * Each poll is then one Kafka transaction holding both the answers and the consumed offsets.
+     */
+    private final boolean transactional;
+
+    /**
+     * The transactional id of the reply producer, which must stay the same across restarts of one client and differ
+     * between clients, set with the transactional.id option.
+     */
+    private final String transactionalId;
+
+    /**
+     * The Kafka servers to connect to, set with the bootstrap.servers option.
+     */
+    private final String bootstrapServers;
+
+    /**
+     * The topic the questions are read from, set with the topic option.
+     */
+    private final String topic;
+
+    /**
+     * The settings of the consumer. Defaults are overridden by every option starting with "consumer.", so that
+     * consumer.fetch.min.bytes sets fetch.min.bytes.
+     */
+    private final Properties consumerProperties;
+
+    /**
+     * The largest number of records returned by a single poll, set with the consumer.max.poll.records option.
+     */
+    private final int maxPollRecords;
+
+    /**
+     * The milliseconds a poll waits for records when none are ready, set with the poll.timeout option.
+     */
+    private final long pollTimeoutMillis;
+
+    /**
+     * The milliseconds one poll of records may take to be processed, set with the processing.timeout option. In
+     * transactional mode the client stops if a poll takes longer, aborting its transaction.
+     */
+    private final long processingTimeoutMillis;
+
+    /**
+     * The milliseconds between commits of the finished offsets, set with the commit.interval option.
+     */
+    private final long commitIntervalMillis;
+
+    /**
+     * The schema answers are written with, set with the output.schema option: 1 for the time taken in milliseconds, 2
+     * to add it in microseconds and 3 to add it in nanoseconds.
+     */
+    private final Schema schema;
+
+    /**
+     * True if answers carry where their time went, set with the output.breakdown option.
+     */
+    private final boolean withBreakdown;
+
+    /**
+     * The port metrics are served on at /metrics, set with the metrics.port option. Zero serves no metrics.
+     */
+    private final int metricsPort;
+
+    /**
+     * The address metrics are served on, set with the metrics.host option.
+     */
+    private final String metricsHost;
+
+    /**
+     * The registry of every metric of the client.
+     */
+    private final MetricsRegistry metrics = new MetricsRegistry("seng4400_");
+
+    /**
+     * The time each poll waited for records.
+     */
+    private final Histogram pollTimes = metrics.histogram("poll_wait", "Time each poll waited for records.");
+
+    /**
+     * The time taken to read the value of each record.
+     */
+    private final Histogram deserializeTimes =
+            metrics.histogram("deserialize", "Time taken to read the value of each record.");
+
+    /**
+     * The time taken to find the primes of each record, including any wait for the primes shared by its poll.
+     */
+    private final Histogram computeTimes =
+            metrics.histogram("compute", "Time taken to find the primes of each record.");
+
+    /**
+     * The time taken to serialize each answer published to the reply topic. Answers posted to the endpoint are
+     * streamed as they are sent, so their serialization is part of the send time.
+     */
+    private final Histogram serializeTimes =
+            metrics.histogram("serialize", "Time taken to serialize each answer published to the reply topic.");
+
+    /**
+     * The time taken by each POST request to the endpoint.
+     */
+    private final Histogram sendTimes =
+            metrics.histogram("http_send", "Time taken by each POST request to the endpoint.");
+
+    /**
+     * The time from the timestamp of each record until its answer was acknowledged.
+     */
+    private final Histogram endToEndTimes =
+            metrics.histogram("end_to_end", "Time from the record timestamp until its answer was acknowledged.");
+
+    /**
+     * The number of records polled.
+     */
+    private final LongAdder recordCount = metrics.counter("records", "Records polled.");
+
+    /**
+     * The number of answers acknowledged by the sink.
+     */
+    private final LongAdder answerCount = metrics.counter("answers", "Answers acknowledged by the sink.");
+
+    /**
+     * The number of records that could not be processed or whose answer could not be sent.
+     */
+    private final LongAdder failureCount =
+            metrics.counter("failures", "Records that could not be processed or whose answer could not be sent.");
+
+    /**
+     * The output of the answers to console, set with the console.mode, console.sample and console.queue options.
+     */
+    private final ConsoleOutput console;
+
+    /**
+     * The server of the metrics while the client runs, or null if no metrics port is set.
+     */
+    private MetricsServer metricsServer;
+
+    /**
+     * Constructor creating a client with every setting read from the options. The settings are held by the client
+     * rather than shared, so that each client runs on its own. If an option holds a value that cannot be used, an
+     * illegal argument exception is thrown before the prime table or the console are created.
+     *
+     * @param config        The options of the client
+     */
+    private Client(Config config) {
+        maxLimit = config.getInt("limit.max", 1_000_000);
+        maxInFlight = config.getInt("workers.max-in-flight", 1000);
+        runtime = config.getString("runtime", "platform");
+        virtualThreads = selectVirtualThreads(runtime);
+        poolSize = config.getInt("http.pool.size", virtualThreads ? maxInFlight : 20);
+        poolIdleSeconds = config.getLong("http.pool.idle", 60);
+        tokenRefreshMarginSeconds = config.getLong("http.token.refresh-margin", 300);
+        authenticate = config.getBoolean("http.auth", true);
+        concurrency = config.getInt("http.concurrency", 8);
+        queueSize = config.getInt("http.queue", 100);
+        batchSize = config.getInt("batch.size", 0);
+        batchBytes = config.getLong("batch.bytes", 4L * 1024 * 1024);
+        batchLingerMillis = config.getLong("batch.linger", 50);
+        batchFormat = BatchContent.Format.valueOf(config.getString("batch.format", "json").toUpperCase(Locale.ROOT));
+        workerThreads = config.getInt("workers", Runtime.getRuntime().availableProcessors());
+        coalesce = config.getBoolean("coalesce", true);
+        deadLetterTopic = config.getString("dlq.topic", "");
+        replyMode = config.getString("reply.mode", "http");
+        replyTopic = config.getString("reply.topic", "seng4400-answers");
+        replyLingerMillis = config.getLong("reply.linger", 20);
+        replyBatchBytes = config.getInt("reply.batch-bytes", 256 * 1024);
+        replyCompression = config.getString("reply.compression", "lz4");
+        replyMaxRequestBytes = config.getInt("reply.max-request-bytes", 16 * 1024 * 1024);
+        transactional = config.getBoolean("transactional", false);
+        transactionalId = config.getString("transactional.id", "ass2-client");
+        bootstrapServers = config.getString("bootstrap.servers", "localhost:9092");
+        topic = config.getString("topic", "seng4400");
+        pollTimeoutMillis = config.getLong("poll.timeout", 100);
+        processingTimeoutMillis = config.getLong("processing.timeout", 10_000);
+        commitIntervalMillis = config.getLong("commit.interval", 1000);
+        schema = Schema.of(config.getInt("output.schema", 1));
+        withBreakdown = config.getBoolean("output.breakdown", false);
+        ConsoleOutput.Mode consoleMode = ConsoleOutput.Mode.of(config.getString("console.mode", "full"));
+        metricsPort = config.getInt("metrics.port", 0);
+        metricsHost = config.getString("metrics.host", "127.0.0.1");
+
+        consumerProperties = new Properties();
+        consumerProperties.put(ConsumerConfig.GROUP_ID_CONFIG, config.getString("group.id", "ass2"));
+        consumerProperties.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, "30000");
+        consumerProperties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "10");
+        consumerProperties.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, "20000");
+        consumerProperties.putAll(config.getPrefixed("consumer."));
+        consumerProperties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        consumerProperties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        if (transactional)
+            consumerProperties.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        maxPollRecords = (int) consumerSetting(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 500);
+        validate();
+
+        engine = PrimeEngines.forName(config.getString("engine", ParallelSieveEngine.NAME),
+                config.getInt("parallel.threads", 0),
+                config.getInt("parallel.threshold", ParallelSieveEngine.DEFAULT_THRESHOLD));
+        cache = createCache(config.getString("cache.file", ""), config.getLong("cache.off-heap.bytes", 0));
+        console = new ConsoleOutput(new FileOutputStream(FileDescriptor.out), consoleMode,
+                config.getInt("console.sample", 100), config.getInt("console.queue", 10_000));
+    }
+
+    /**
+     * Method checks that the settings work together, so that a bad combination fails at startup rather than once the
+     * consumer is under load. Every problem found is listed in the illegal argument exception thrown.
+     */
+    private void validate() {
+        List<String> problems = new ArrayList<>();
+        long pollInterval = consumerSetting(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, 300_000);
+        long sessionTimeout = consumerSetting(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, 45_000);
+        long heartbeat = consumerSetting(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG, 3000);
+        long fetchMaxWait = consumerSetting(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 500);
+        long requestTimeout = consumerSetting(ConsumerConfig.REQUEST_TIMEOUT_MS_CONFIG, 30_000);
+        long fetchMinBytes = consumerSetting(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 1);
+        long fetchMaxBytes = consumerSetting(ConsumerConfig.FETCH_MAX_BYTES_CONFIG, 50L * 1024 * 1024);
+
+        if (maxLimit < 2)
+            problems.add("limit.max must be at least 2");
+        if (maxPollRecords < 1)
+            problems.add("consumer.max.poll.records must be at least 1");
+        if (pollTimeoutMillis < 1 || pollTimeoutMillis >= pollInterval)
+            problems.add("poll.timeout (" + pollTimeoutMillis + " ms) must be above zero and below "
+                    + "consumer.max.poll.interval.ms (" + pollInterval + " ms)");
+        if (processingTimeoutMillis < 1 || processingTimeoutMillis + pollTimeoutMillis >= pollInterval)
+            problems.add("processing.timeout plus poll.timeout (" + (processingTimeoutMillis + pollTimeoutMillis)
+                    + " ms) must be below consumer.max.poll.interval.ms (" + pollInterval + " ms), or the consumer"
+                    + " leaves the group while a poll is processed");
+        if (commitIntervalMillis >= pollInterval)
+            problems.add("commit.interval must be below consumer.max.poll.interval.ms");
+        if (fetchMaxWait >= requestTimeout)
+            problems.add("consumer.fetch.max.wait.ms (" + fetchMaxWait + " ms) must be below "
+                    + "consumer.request.timeout.ms (" + requestTimeout + " ms)");
+        if (fetchMinBytes > fetchMaxBytes)
+            problems.add("consumer.fetch.min.bytes must not be above consumer.fetch.max.bytes");
+        if (heartbeat * 3 > sessionTimeout)
+            problems.add("consumer.heartbeat.interval.ms must be at most a third of consumer.session.timeout.ms");
+        if (maxInFlight < maxPollRecords)
+            problems.add("workers.max-in-flight must hold at least one poll of records ("
+                    + maxPollRecords + "), or the consumer is never resumed");
+        if (queueSize < maxPollRecords && !replyMode.equals("kafka")
+                && (batchSize > 0 || (concurrency > 0 && !virtualThreads)))
+            problems.add("http.queue must hold at least one poll of records (" + maxPollRecords + ")");
+        if (batchSize > 0 && runtime.equals("virtual") && !replyMode.equals("kafka"))
+            problems.add("batch.size must be 0 with runtime=virtual, since records on virtual threads finish out of "
+                    + "order and a batch must hold them in offset order");
+        if (!problems.isEmpty())
+            throw new IllegalArgumentException("Error. Invalid configuration:\n  " + String.join("\n  ", problems));
+    }
+
+    /**
+     * Function returns a numeric setting of the consumer, or the Kafka default if it was not set.
+     *
+     * @param name          The name of the consumer setting
+     * @param defaultValue  The default Kafka gives the setting
+     * @return              The value of the setting
+     */
+    private long consumerSetting(String name, long defaultValue) {
+        Object value = consumerProperties.get(name);
+        try {
+            return value == null ? defaultValue : Long.parseLong(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Error. Option consumer." + name + " must be a whole number: " + value);
+        }
+    }
+
     /**
      * Function responsible for creating and setting up the consumer by applying configurations. Once the configurations
      * are set a new consumer is returned.
      *
      * @return          the consumer with properties set.
      */
-    private static Consumer<String, String> createConsumer() {
+    private Consumer<String, Limit> createConsumer() {
         Properties props = new Properties();
-        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
-        props.put(ConsumerConfig.GROUP_ID_CONFIG, "ass2");
-        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "true");
-        props.put(ConsumerConfig.AUTO_COMMIT_INTERVAL_MS_CONFIG, "1000");
-        props.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, "30000");
-        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 10);
-        props.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, "20000");
-        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
-        return new KafkaConsumer<>(props);
+        props.putAll(consumerProperties);
+        return new KafkaConsumer<>(props, new StringDeserializer(),
+                new TimedDeserializer<>(new LimitDeserializer(), deserializeTimes));
+    }
+
+    /**
+     * Driver function which can take an optional program argument to configure the URL, along with options of the
+     * form --key=value. If more than one argument other than the options is given, an illegal argument exception is
+     * thrown. If the URL given is not appropriate, a malformed url exception is thrown. Once the options are read and
+     * checked the main function can run.
+     *
+     * @param args              A value that can be used as an alternative URL, and any options
+     * @throws IOException      Throws if URL is invalid or the config file cannot be read
+     * @throws InterruptedException Throws if the thread is interrupted while waiting to send an answer
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        run(args, null);
     }
 
     /**
-     * Driver function which can take an optional program argument to configure the URL. If more than one argument is
-     * given, an illegal argument exception is thrown. If the URL given is not appropriate, a malformed url exception
-     * is thrown. Once the argument is retrieved the main function can run.
+     * Function runs the client with the program arguments given, reading from the consumer given rather than from
+     * Kafka when one is passed, so that the client can be driven without a broker. The client runs until the calling
+     * thread is interrupted, then finishes the records in flight, commits their offsets and closes. Every call runs a
+     * client of its own with its own settings, metrics and prime table.
      *
-     * @param args              A value that can be used as an alternative URL
-     * @throws IOException      Throws if URL is invalid
+     * @param args              A value that can be used as an alternative URL, and any options
+     * @param consumer          The consumer to read from, or null to connect to Kafka
+     * @throws IOException      Throws if URL is invalid or the config file cannot be read
+     * @throws InterruptedException Throws if the thread is interrupted while waiting to send an answer
      */
-    public static void main(String[] args) throws IOException {
-        if (args.length > 1)
+    public static void run(String[] args, Consumer<String, Limit> consumer) throws IOException, InterruptedException {
+        Config config = Config.load(args);
+        List<String> arguments = config.getArguments();
+        if (arguments.size() > 1)
             throw new IllegalArgumentException("Error. Program must run with a maximum of one optional argument.");
-        String url = args.length == 1 ? args[0] : "https://australia-southeast1-seng4400-350016.cloudfunctions.net/endpoint-function-1";
-        run(url);
+        Client client = new Client(config);
+        String url = arguments.size() == 1 ? arguments.get(0) : "https://australia-southeast1-seng4400-350016.cloudfunctions.net/endpoint-function-1";
+        if (consumer == null)
+            consumer = client.createConsumer();                         // Create the consumer
+        if (client.transactional)
+            client.runTransactional(consumer);
+        else
+            client.run(url, consumer);
     }
 
     /**
      * Main function responsible for subscribing to the queue, getting consumer records and for each record, obtain
      * the value so that a list of primes can be obtained along with the time taken. With both the time and prime
-     * numbers, a JSON object is created to be posted to the endpoint with hardcoded credentials for authentication.
+     * numbers, a JSON body is streamed to be posted to the endpoint with hardcoded credentials for authentication.
      *
-     * The credentials are used to call a function to acquire a signed JSON web token. The web token, URL, and the JSON
-     * object are used to call another function to make a post request.
+     * The credentials are used once to acquire a signed JSON web token which is refreshed before it expires. The
+     * endpoint client holds the web token and a pool of connections to the URL and is used to make each post request.
+     * If no URL was declared by the user, the default service URL will call a HTTP cloud function trigger to handle
+     * the POST request.
+     *
+     * Records that cannot be read or ask for a value above the max are rejected to the dead letters with their reason
+     * and processing carries on with the next record.
+     *
+     * The primes up to the largest value of each poll are found once and every record of the poll is answered with a
+     * prefix of them, unless coalescing is turned off. Records are handed to a pool of workers, keyed by partition so
+     * that each partition is processed in order, and the answers are handed to a sink which posts them on its own
+     * threads. An offset is only committed once its record and every earlier record of the partition have been posted,
+     * so a crash never loses a record that was not answered. When the workers or the sink have no room for another poll
+     * of records the partitions are paused, so the consumer keeps polling and stays in the group while they catch up,
+     * and they are resumed once there is room. A partition holding a record that could neither be answered nor dead
+     * lettered is paused until its other records finish, then consumed again from that record.
      *
      * @param url       The URL to call the POST request
+     * @param consumer  The consumer to read from
      */
-    private static void run(String url) throws IOException {
-        Consumer<String, String> consumer = createConsumer();            // Create the consumer
-        consumer.subscribe(Collections.singletonList("seng4400"));
-        GsonBuilder gsonBuilder = new GsonBuilder();
-        Gson gson = gsonBuilder.setPrettyPrinting().create();
-        while (true) {
-            ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(100));
-            for (ConsumerRecord<String, String> record : records) {
-                if (Integer.parseInt(record.value()) > 1_000_000)
-                    break;
-                long startTime = System.nanoTime();                     // Time acquired before getting prime list
-                ArrayList<Integer> list = getPrimes(Integer.parseInt(record.value()));
-                long endTime = System.nanoTime();                       // Time acquired after getting prime list
-
-                // Creating the JSON object with values obtained
-                JsonObject jsonObj = new JsonObject();
-                JsonArray array = gsonBuilder.create().toJsonTree(list).getAsJsonArray();
-                JsonElement answer = gsonBuilder.create().toJsonTree(array);
-                JsonElement time = gsonBuilder.create().toJsonTree((endTime-startTime)/1_000_000);
-                jsonObj.add("answer", answer);
-                jsonObj.add("time_taken", time);
-
-                // Output to Console and send to remote rest-point
-                System.out.println(gson.toJson(jsonObj));
-                postRequest(url, jsonObj);
+    private void run(String url, Consumer<String, Limit> consumer) throws IOException {
+        OffsetTracker tracker = new OffsetTracker();
+        consumer.subscribe(Collections.singletonList(topic), new CommittingRebalanceListener(consumer, tracker));
+        AnswerSink sink = createSink(url, virtualThreads);
+        RecordExecutor workers = createWorkers();
+        DeadLetterSink deadLetters = createDeadLetterSink();
+        long lastCommit = System.nanoTime();
+        long lastRejected = 0;
+        try {
+            startMetrics(deadLetters);
+            while (!Thread.currentThread().isInterrupted()) {
+                ConsumerRecords<String, Limit> records = poll(consumer);
+                dispatch(records, tracker, workers, sink, deadLetters, true, Client::report);
+                if (System.nanoTime() - lastCommit >= TimeUnit.MILLISECONDS.toNanos(commitIntervalMillis)) {
+                    commit(consumer, tracker);
+                    lastCommit = System.nanoTime();
+                    if (deadLetters.getRejectedTotal() != lastRejected) { // Report the rejected volume when it grows
+                        lastRejected = deadLetters.getRejectedTotal();
+                        System.err.println("Rejected " + lastRejected + " records " + deadLetters.getRejected());
+                    }
+                }
+                retryFailed(consumer, tracker);
+                applyBackpressure(consumer, sink, tracker);
             }
+        } catch (InterruptException e) {                                // Interrupted inside the poll
+            Thread.currentThread().interrupt();
+        } finally {
+            shutdown(consumer, tracker, workers, sink, deadLetters, true);
         }
     }
 
     /**
-     * The function makes an authenticated post request to the service URL by sending a request body consisting of the
-     * prime numbers and time obtained. An identification token is created using an audience which is currently the name
-     * of the default service account.
+     * Function consumes the queue with exactly-once delivery to the reply topic. Each poll is processed as one Kafka
+     * transaction, the answers of every record of the poll are published and the offsets of the poll are sent to the
+     * same transaction, so either both the answers and the offsets are committed or neither is. The consumer reads
+     * only committed records and never commits offsets itself.
      *
-     * If no URL was declared by the user, the default service URL will call a HTTP cloud function trigger to handle
-     * the POST request.
+     * If the transaction fails, or the poll is not processed within the processing timeout, it is aborted and the
+     * consumer is rewound to the start of the poll so that the records are processed again. Records still in flight
+     * are waited for first, so that a late answer never joins the next transaction. Rejected records are written to
+     * the dead letter topic through the same producer, inside the transaction, or to stderr when no topic is set.
+     * However the loop ends, whether interrupted or fenced, every stage is shut down as in the other mode.
      *
-     * @param serviceUrl    The value of the URL used to call a service
-     * @param jsonObj       The JSON object containing the prime numbers and time taken
-     * @throws IOException  Throws exception if URL is invalid
+     * @param consumer  The consumer to read from
      */
-    private static void postRequest(String serviceUrl, JsonObject jsonObj) throws IOException {
-        String audience = "App Engine default service account";
-        GoogleCredentials credentials = GoogleCredentials.getApplicationDefault();
-        if (!(credentials instanceof IdTokenProvider)) {
-            throw new IllegalArgumentException("Credentials are not an instance of IdTokenProvider.");
-        }
-        IdTokenCredentials tokenCredential =
-                IdTokenCredentials.newBuilder()
-                        .setIdTokenProvider((IdTokenProvider) credentials)
-                        .setTargetAudience(audience)
-                        .build();
-        GenericUrl genericUrl = new GenericUrl(serviceUrl);
-        HttpCredentialsAdapter adapter = new HttpCredentialsAdapter(tokenCredential);
-        HttpTransport transport = new NetHttpTransport();
-        HttpRequest request = transport.createRequestFactory(adapter)
-                .buildPostRequest(genericUrl, ByteArrayContent.fromString("application/json", jsonObj.toString()));
-        request.execute();
-    }
-
-    /**
-     * Method retrieves a list of prime numbers from the value two to the max specified in the parameter.
-     *
-     * @param max           The value to specify the max range
-     * @return              The list of prime numbers
-     */
-    private static ArrayList<Integer> getPrimes(int max) {
-        ArrayList<Integer> primes = new ArrayList<>();
-        for (int i = 2; i <= max; i++) {                                        // Iterate through entire range
-            boolean isPrime = true;
-            for (int j = 2; j <= i/j; ++j) {                                    // Check if j is a factor of i
-                if (i % j == 0) {                                               // If it is, do not add to list
-                    isPrime = false;
-                    break;
+    private void runTransactional(Consumer<String, Limit> consumer) throws IOException {
+        Properties props = KafkaReplySink.producerProperties(bootstrapServers, replyLingerMillis,
+                replyBatchBytes, replyCompression, replyMaxRequestBytes);
+        props.put(ProducerConfig.TRANSACTIONAL_ID_CONFIG, transactionalId);
+        Serializer<Answer> answers = new TimedSerializer<>(new AnswerSerializer(), serializeTimes);
+        Serializer<Object> values = (valueTopic, value) -> value instanceof Answer
+                ? answers.serialize(valueTopic, (Answer) value) : (byte[]) value;
+        Producer<String, Object> producer = new KafkaProducer<>(props, new StringSerializer(), values);
+        AnswerSink sink = new KafkaReplySink(producer, replyTopic);
+        OffsetTracker tracker = new OffsetTracker();
+        consumer.subscribe(Collections.singletonList(topic), new ConsumerRebalanceListener() {
+            @Override
+            public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                tracker.remove(partitions);
+            }
+
+            @Override
+            public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            }
+        });
+        RecordExecutor workers = createWorkers();
+        DeadLetterSink deadLetters = deadLetterTopic.isEmpty()
+                ? createDeadLetterSink() : new KafkaDeadLetterSink(producer, deadLetterTopic);
+        try {
+            producer.initTransactions();
+            startMetrics(deadLetters);
+            while (!Thread.currentThread().isInterrupted()) {
+                ConsumerRecords<String, Limit> records = poll(consumer);
+                if (records.isEmpty())
+                    continue;
+                AtomicReference<Exception> failure = new AtomicReference<>();
+                producer.beginTransaction();
+                try {
+                    dispatch(records, tracker, workers, sink, deadLetters, false, (answer, error) -> {
+                        report(answer, error);
+                        if (error != null)
+                            failure.compareAndSet(null, error);
+                    });
+                    if (!tracker.awaitIdle(processingTimeoutMillis))
+                        throw new TimeoutException("Poll was not processed within " + processingTimeoutMillis + " ms");
+                    if (failure.get() != null)
+                        throw new KafkaException("Failed to process the batch", failure.get());
+                    producer.sendOffsetsToTransaction(tracker.commitable(), consumer.groupMetadata());
+                    producer.commitTransaction();
+                } catch (ProducerFencedException | OutOfOrderSequenceException | AuthorizationException e) {
+                    throw e;                                            // Cannot recover, another client took over
+                } catch (InterruptException e) {
+                    throw e;
+                } catch (KafkaException e) {
+                    System.err.println("Aborting transaction: " + e.getMessage());
+                    producer.abortTransaction();
+                    while (!tracker.awaitIdle(processingTimeoutMillis)) // Late answers would join the next one
+                        System.err.println("Waiting for " + tracker.inFlight() + " records of the aborted poll");
+                    tracker.remove(records.partitions());
+                    for (TopicPartition partition : records.partitions()) // Process the whole poll again
+                        consumer.seek(partition, records.records(partition).get(0).offset());
                 }
             }
-            if (isPrime)
-                primes.add(i);
+        } catch (InterruptException | InterruptedException e) {        // Interrupted inside the poll or a wait
+            Thread.currentThread().interrupt();                         // An open transaction is aborted on restart
+        } finally {
+            shutdown(consumer, tracker, workers, sink, deadLetters, false);
+        }
+    }
+
+    /**
+     * Method stops every stage of the client once the poll loop has ended, however it ended. The workers are closed
+     * first so that the records in flight finish, then the sink so that their answers are sent, before the finished
+     * offsets are committed and the consumer is closed. The interrupt status of the thread is cleared while the
+     * stages are closed, so that they can wait for their work, and restored afterwards. The metrics server, if any,
+     * is stopped along with the console.
+     *
+     * The prime table is only released once the workers, the sink and the console have all stopped, since each of
+     * them may hold a slice over the table. If any gave up waiting the table is left for the collector to free once
+     * the last slice over it is unreachable.
+     *
+     * @param consumer      The consumer to close
+     * @param tracker       The tracker of the records in flight
+     * @param workers       The executor processing the records
+     * @param sink          The sink the answers are handed to
+     * @param deadLetters   The sink for rejected records
+     * @param commit        True if the finished offsets are committed by the consumer, false if by transactions
+     * @throws IOException  Throws if a stage fails to close
+     */
+    private void shutdown(Consumer<?, ?> consumer, OffsetTracker tracker, RecordExecutor workers,
+                          AnswerSink sink, DeadLetterSink deadLetters, boolean commit) throws IOException {
+        boolean interrupted = Thread.interrupted();                     // Let the shutdown wait for the records
+        try {
+            workers.close();
+            sink.close();
+            Map<TopicPartition, OffsetAndMetadata> offsets = tracker.commitable();
+            if (commit && !offsets.isEmpty())
+                consumer.commitSync(offsets);
+            consumer.close();
+            deadLetters.close();
+            console.close();
+            if (metricsServer != null)
+                metricsServer.close();
+            if (workers.isTerminated() && sink.isTerminated() && console.isTerminated()) {
+                cache.close();                                          // Every answer is done with the primes
+                engine.close();
+            }
+            else                                                        // An answer may still read the primes
+                System.err.println("A stage did not stop in time, leaving the prime table to the collector.");
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
         }
-        return primes;
+    }
+
+    /**
+     * Function polls the consumer for records, recording the time the poll waited and the number of records.
+     *
+     * @param consumer      The consumer to poll
+     * @return              The records of the poll
+     */
+    private ConsumerRecords<String, Limit> poll(Consumer<String, Limit> consumer) {
+        long startTime = System.nanoTime();
+        ConsumerRecords<String, Limit> records = consumer.poll(Duration.ofMillis(pollTimeoutMillis));
+        pollTimes.recordSince(startTime);
+        recordCount.add(records.count());
+        return records;
+    }
+
+    /**
+     * Method registers the metrics kept by the cache and the dead letters, and serves every metric at /metrics when a
+     * metrics port is set.
+     *
+     * @param deadLetters   The sink for rejected records
+     * @throws IOException  Throws if the metrics port cannot be bound
+     */
+    private void startMetrics(DeadLetterSink deadLetters) throws IOException {
+        metrics.counter("cache_hits", "Requests answered from the prime table as it stood.", cache::getHits);
+        metrics.counter("cache_misses", "Requests that grew the prime table.", cache::getMisses);
+        metrics.counter("rejected", "Records rejected to the dead letters.", deadLetters::getRejectedTotal);
+        metrics.counter("console_dropped", "Answers not written to console because it could not keep up.",
+                console::getDropped);
+        if (metricsPort > 0)
+            metricsServer = new MetricsServer(metrics, metricsHost, metricsPort);
+    }
+
+    /**
+     * Method hands every record of a poll to the workers. Records that cannot be read or ask for a value above the max
+     * are rejected to the dead letters and finished once their dead letter is written. If it cannot be written the
+     * offset of the record is held and the callback is told of the failure. Every record is tracked in offset order so
+     * that an offset can only be committed once every record before it has finished.
+     *
+     * A record whose answer could not be found or sent is never finished as if it were answered. It is either
+     * rejected to the dead letters in the same way, or its offset is held so that it is consumed again, which is what
+     * a transaction that is about to be aborted wants. A record interrupted by the shutdown always has its offset held.
+     *
+     * @param records       The records of the poll
+     * @param tracker       The tracker of the records in flight
+     * @param workers       The executor processing the records
+     * @param sink          The sink the answers are handed to
+     * @param deadLetters   The sink for rejected records
+     * @param deadLetterFailures True if records whose answer failed are rejected, false if their offset is held
+     * @param callback      The callback told the outcome of each answer
+     */
+    private void dispatch(ConsumerRecords<String, Limit> records, OffsetTracker tracker,
+                          RecordExecutor workers, AnswerSink sink, DeadLetterSink deadLetters,
+                          boolean deadLetterFailures, SendCallback callback) {
+        List<ConsumerRecord<String, Limit>> accepted = new ArrayList<>(records.count());
+        int[] limits = new int[records.count()];
+        int batchMax = 0;
+        for (ConsumerRecord<String, Limit> record : records) {
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            tracker.track(partition, record.offset());
+            Limit value = record.value() == null ? Limit.invalid(Limit.Error.MISSING, null) : record.value();
+            RejectReason reason = !value.isValid() ? RejectReason.of(value.getError())
+                    : value.getValue() > maxLimit ? RejectReason.OUT_OF_RANGE : null;
+            if (reason != null) {
+                reject(record, reason, tracker, deadLetters, callback);
+                continue;
+            }
+            int limit = value.getValue();
+            limits[accepted.size()] = limit;
+            accepted.add(record);
+            batchMax = Math.max(batchMax, limit);
+        }
+        CoalescedBatch shared = coalesce && !accepted.isEmpty()
+                ? new CoalescedBatch(cache, batchMax, accepted.size()) : null;
+        for (int i = 0; i < accepted.size(); i++) {
+            ConsumerRecord<String, Limit> record = accepted.get(i);
+            int limit = limits[i];
+            CoalescedBatch batch = shared != null ? shared : new CoalescedBatch(cache, limit, 1);
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            workers.execute(partition, () -> process(limit, record.key(), batch, sink, (answer, error) -> {
+                if (error == null && record.timestamp() >= 0)             // Record timestamps are in milliseconds
+                    endToEndTimes.record((System.currentTimeMillis() - record.timestamp()) * 1_000_000);
+                (error == null ? answerCount : failureCount).increment();
+                callback.onComplete(answer, error);
+                if (error == null)
+                    tracker.complete(partition, record.offset());
+                else if (deadLetterFailures && !(error instanceof InterruptedException))
+                    reject(record, RejectReason.FAILED, tracker, deadLetters, callback);
+                else
+                    tracker.fail(partition, record.offset());                // Consumed again once rewound
+            }));
+        }
+    }
+
+    /**
+     * Method rejects a record to the dead letters, finishing it once its dead letter is written. If the dead letter
+     * cannot be written the offset of the record is held, so that the record is consumed again once its partition is
+     * rewound, and the callback is told of the failure.
+     *
+     * @param record        The rejected record
+     * @param reason        The reason the record was rejected
+     * @param tracker       The tracker of the records in flight
+     * @param deadLetters   The sink for rejected records
+     * @param callback      The callback told if the dead letter could not be written
+     */
+    private void reject(ConsumerRecord<String, Limit> record, RejectReason reason, OffsetTracker tracker,
+                        DeadLetterSink deadLetters, SendCallback callback) {
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        deadLetters.reject(record, reason, error -> {
+            if (error == null) {
+                tracker.complete(partition, record.offset());
+            } else {
+                tracker.fail(partition, record.offset());
+                callback.onComplete(null, new IOException("Failed to write dead letter: " + error.getMessage(), error));
+            }
+        });
+    }
+
+    /**
+     * Method processes one record on a worker thread, finding the primes up to the value of the record along with the
+     * time taken, handing the answer to the console output and to the sink. The primes are cut from those shared by
+     * the batch of the record, and the time taken is the share of the record. The callback is told once the answer
+     * has been sent, or straight away if the record could not be processed or was interrupted.
+     *
+     * @param limit         The value of the record
+     * @param key           The key of the record
+     * @param batch         The primes shared by the batch of the record
+     * @param sink          The sink the answer is handed to
+     * @param callback      The callback told the outcome of the record
+     */
+    private void process(int limit, String key, CoalescedBatch batch, AnswerSink sink,
+                         SendCallback callback) {
+        Answer answer = null;
+        try {
+            long startTime = System.nanoTime();
+            CoalescedBatch.Result result = batch.primes(limit);
+            computeTimes.recordSince(startTime);
+            Breakdown breakdown = withBreakdown
+                    ? new Breakdown(result.getComputeNanos(), result.getCacheNanos()) : null;
+            answer = Answer.ofNanos(result.getPrimes(), result.getNanos(), key, schema, breakdown);
+
+            // Output to Console and send to remote rest-point
+            console.print(answer);
+            sink.submit(answer, callback);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            callback.onComplete(answer, e);
+        } catch (RuntimeException e) {
+            callback.onComplete(answer, e);
+        }
+    }
+
+    /**
+     * Function returns whether records should run on virtual threads for the selected runtime.
+     *
+     * @param runtime       The runtime, either "platform" or "virtual"
+     * @return              True if virtual threads are selected and available
+     */
+    private static boolean selectVirtualThreads(String runtime) {
+        switch (runtime) {
+            case "platform":
+                return false;
+            case "virtual":
+                if (VirtualThreadWorkers.isAvailable())
+                    return true;
+                System.err.println("Virtual threads need Java 21 or later, using platform threads.");
+                return false;
+            default:
+                throw new IllegalArgumentException("Error. Unknown runtime: " + runtime);
+        }
+    }
+
+    /**
+     * Method commits the offsets of every partition whose finished prefix has grown since the last commit. The commit
+     * is asynchronous so the poll loop does not wait for the broker.
+     *
+     * @param consumer      The consumer committing the offsets
+     * @param tracker       The tracker of the records in flight
+     */
+    private static void commit(Consumer<?, ?> consumer, OffsetTracker tracker) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = tracker.commitable();
+        if (offsets.isEmpty())
+            return;
+        consumer.commitAsync(offsets, (committed, error) -> {
+            if (error != null)
+                System.err.println("Failed to commit offsets: " + error.getMessage());
+        });
+    }
+
+    /**
+     * Function creates the table of primes shared by every record. When a size is given for the table off the heap,
+     * it is allocated up front at that size or the size needed to reach the max limit, whichever is smaller.
+     *
+     * @param file          The path of the file the table is kept in, or empty to keep it in memory only
+     * @param offHeapBytes  The most bytes the table may hold off the heap, or zero to hold it on the heap
+     * @return              The cache of primes
+     */
+    private PrimeCache createCache(String file, long offHeapBytes) {
+        if (offHeapBytes < 0 || offHeapBytes > 0 && offHeapBytes < 4)
+            throw new IllegalArgumentException("Error. cache.off-heap.bytes must be zero or at least 4.");
+        OffHeapPrimeTable offHeap = offHeapBytes == 0 ? null
+                : new OffHeapPrimeTable((int) Math.min(offHeapBytes / 4, OffHeapPrimeTable.capacityFor(maxLimit)));
+        return new PrimeCache(engine, maxLimit, file.isEmpty() ? null : new PrimeFile(Paths.get(file)), offHeap);
+    }
+
+    /**
+     * Function creates the sink for rejected records, producing to the dead letter topic when one is set and otherwise
+     * writing a line for each record to standard error.
+     *
+     * @return              The dead letter sink
+     */
+    private DeadLetterSink createDeadLetterSink() {
+        if (deadLetterTopic.isEmpty())
+            return new LogDeadLetterSink(System.err);
+        return new KafkaDeadLetterSink(bootstrapServers, deadLetterTopic);
+    }
+
+    /**
+     * Function creates the executor that processes the records. Virtual threads are used when selected and supported
+     * by the running JVM, otherwise the records are processed by the platform thread workers.
+     *
+     * @return              The executor processing the records
+     */
+    private RecordExecutor createWorkers() {
+        if (virtualThreads)
+            return new VirtualThreadWorkers();
+        return new PartitionWorkers(workerThreads);
+    }
+
+    /**
+     * Function creates the sink that delivers the answers, posting them to the endpoint, publishing them to the reply
+     * topic or both depending on the reply mode.
+     *
+     * @param url           The URL to call the POST request
+     * @param blocking      True if the answers should be posted on the thread processing the record
+     * @return              The sink delivering the answers
+     * @throws IOException  Throws if the credentials cannot be read
+     */
+    private AnswerSink createSink(String url, boolean blocking) throws IOException {
+        switch (replyMode) {
+            case "http":
+                return createEndpointSink(url, blocking);
+            case "kafka":
+                return createReplySink();
+            case "both":
+                return new FanOutSink(createEndpointSink(url, blocking), createReplySink());
+            default:
+                throw new IllegalArgumentException("Error. Unknown reply mode: " + replyMode);
+        }
+    }
+
+    /**
+     * Function creates the sink that publishes answers to the reply topic.
+     *
+     * @return              The sink publishing to the reply topic
+     */
+    private AnswerSink createReplySink() {
+        Properties props = KafkaReplySink.producerProperties(bootstrapServers, replyLingerMillis,
+                replyBatchBytes, replyCompression, replyMaxRequestBytes);
+        return new KafkaReplySink(new KafkaProducer<>(props, new StringSerializer(),
+                new TimedSerializer<>(new AnswerSerializer(), serializeTimes)), replyTopic);
+    }
+
+    /**
+     * Function creates the sink that posts answers to the endpoint. With a batch size above zero the answers are posted
+     * in batches, otherwise with a concurrency of zero, or when records run on virtual threads, the answers are posted
+     * on the thread processing the record.
+     *
+     * @param url           The URL to call the POST request
+     * @param blocking      True if the answers should be posted on the thread processing the record
+     * @return              The sink posting to the URL
+     * @throws IOException  Throws if the credentials cannot be read
+     */
+    private AnswerSink createEndpointSink(String url, boolean blocking) throws IOException {
+        EndpointClient endpoint = new EndpointClient(url, poolSize, poolIdleSeconds, tokenRefreshMarginSeconds,
+                sendTimes, authenticate);
+        if (batchSize == 0 && (concurrency == 0 || blocking))
+            return new EndpointSink(endpoint);
+        if (batchSize > 0)
+            return new BatchingEndpointSink(endpoint, Math.max(1, concurrency), queueSize, batchSize, batchBytes,
+                    batchLingerMillis, batchFormat);
+        return new AsyncEndpointSink(endpoint, concurrency, queueSize);
+    }
+
+    /**
+     * Method rewinds every partition whose failed record is ready to be consumed again, once every other record of the
+     * partition has finished, committing the finished prefix before it first.
+     *
+     * @param consumer      The consumer to rewind
+     * @param tracker       The tracker of the records in flight
+     */
+    private static void retryFailed(Consumer<?, ?> consumer, OffsetTracker tracker) {
+        Map<TopicPartition, Long> offsets = tracker.rewind();
+        if (offsets.isEmpty())
+            return;
+        commit(consumer, tracker);
+        for (Map.Entry<TopicPartition, Long> entry : offsets.entrySet()) {
+            System.err.println("Consuming " + entry.getKey() + " again from offset " + entry.getValue());
+            consumer.seek(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Method pauses every assigned partition when the sink or the workers cannot take another full poll of records,
+     * and resumes them once they can. Partitions holding a failed record stay paused until they are rewound, so no
+     * more records pile up behind the failure. Paused partitions return no records, so polling carries on without
+     * blocking.
+     *
+     * @param consumer      The consumer to pause or resume
+     * @param sink          The sink the answers are handed to
+     * @param tracker       The tracker of the records in flight
+     */
+    private void applyBackpressure(Consumer<?, ?> consumer, AnswerSink sink, OffsetTracker tracker) {
+        Set<TopicPartition> held = tracker.held();
+        if (!sink.hasCapacity(maxPollRecords) || tracker.inFlight() + maxPollRecords > maxInFlight) {
+            consumer.pause(consumer.assignment());
+            return;
+        }
+        Set<TopicPartition> resume = new HashSet<>(consumer.paused());
+        resume.removeAll(held);
+        if (!resume.isEmpty())
+            consumer.resume(resume);
+        held.retainAll(consumer.assignment());
+        if (!held.isEmpty())
+            consumer.pause(held);
+    }
+
+    /**
+     * Method reports a record whose answer could not be found or posted.
+     *
+     * @param answer        The answer that was sent, or null if none was found
+     * @param error         The reason the answer could not be sent, or null if it was sent
+     */
+    private static void report(Answer answer, Exception error) {
+        if (error != null)
+            System.err.println("Failed to " + (answer == null ? "process record: " : "post answer: ")
+                    + error.getMessage());
     }
 }
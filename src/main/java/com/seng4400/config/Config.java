@@ -0,0 +1,244 @@
+package com.seng4400.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The options of the client, gathered from several sources so that they can be changed without a rebuild. Each source
+ * overrides the ones before it:
+ *
+ * 1. the named profile, such as "low-latency" or "throughput", selected with the profile option;
+ * 2. the properties file named by the config option;
+ * 3. environment variables, where SENG4400_LIMIT_MAX sets limit.max;
+ * 4. system properties, where -Dseng4400.limit.max sets limit.max;
+ * 5. program arguments, where --limit.max=1000 sets limit.max.
+ *
+ * Options not set by any source fall back to the default given by the caller. Keys are compared ignoring case, and
+ * dots, dashes and underscores are treated alike so that every key can be spelt as an environment variable.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public final class Config {
+
+    /**
+     * The prefix of the environment variables read as options.
+     */
+    public static final String ENV_PREFIX = "SENG4400_";
+
+    /**
+     * The prefix of the system properties read as options.
+     */
+    public static final String PROPERTY_PREFIX = "seng4400.";
+
+    private static final String PROFILE = "profile";
+    private static final String CONFIG = "config";
+
+    private final Map<String, String> values;
+    private final List<String> arguments;
+
+    private Config(Map<String, String> values, List<String> arguments) {
+        this.values = values;
+        this.arguments = arguments;
+    }
+
+    /**
+     * Function gathers the options from every source. Program arguments of the form --key=value are taken as options
+     * and the rest are kept as plain arguments. If the profile is not known or the config file cannot be read, an
+     * exception is thrown.
+     *
+     * @param args          The program arguments
+     * @return              The options
+     * @throws IOException  Throws if the config file or the profile cannot be read
+     */
+    public static Config load(String[] args) throws IOException {
+        Map<String, String> cli = new HashMap<>();
+        List<String> arguments = new ArrayList<>();
+        for (String arg : args) {
+            int split = arg.indexOf('=');
+            if (arg.startsWith("--") && split > 2)
+                cli.put(normalise(arg.substring(2, split)), arg.substring(split + 1));
+            else
+                arguments.add(arg);
+        }
+
+        Map<String, String> env = new HashMap<>();
+        for (Map.Entry<String, String> entry : System.getenv().entrySet()) {
+            if (entry.getKey().startsWith(ENV_PREFIX))
+                env.put(normalise(entry.getKey().substring(ENV_PREFIX.length())), entry.getValue());
+        }
+
+        Map<String, String> system = new HashMap<>();
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(PROPERTY_PREFIX))
+                system.put(normalise(name.substring(PROPERTY_PREFIX.length())), System.getProperty(name));
+        }
+
+        Map<String, String> file = new HashMap<>();
+        String path = first(CONFIG, cli, system, env);
+        if (path != null) {
+            try (Reader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+                putAll(file, reader);
+            }
+        }
+
+        Map<String, String> values = new HashMap<>();
+        String profile = first(PROFILE, cli, system, env, file);
+        if (profile != null && !profile.isEmpty()) {
+            try (InputStream in = Config.class.getResourceAsStream(profile + ".properties")) {
+                if (in == null)
+                    throw new IllegalArgumentException("Error. Unknown profile: " + profile);
+                putAll(values, new InputStreamReader(in, StandardCharsets.UTF_8));
+            }
+        }
+        values.putAll(file);
+        values.putAll(env);
+        values.putAll(system);
+        values.putAll(cli);
+        return new Config(values, Collections.unmodifiableList(arguments));
+    }
+
+    /**
+     * Function returns the program arguments that were not options.
+     *
+     * @return              The plain program arguments, in order
+     */
+    public List<String> getArguments() {
+        return arguments;
+    }
+
+    /**
+     * Function returns the value of an option.
+     *
+     * @param key           The key of the option
+     * @param defaultValue  The value returned if the option is not set
+     * @return              The value of the option
+     */
+    public String getString(String key, String defaultValue) {
+        String value = values.get(normalise(key));
+        return value == null ? defaultValue : value.trim();
+    }
+
+    /**
+     * Function returns the value of an option holding an int. If the value is not an int, an illegal argument exception
+     * is thrown.
+     *
+     * @param key           The key of the option
+     * @param defaultValue  The value returned if the option is not set
+     * @return              The value of the option
+     */
+    public int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Error. Option " + key + " must be a whole number: " + value);
+        }
+    }
+
+    /**
+     * Function returns the value of an option holding a long. If the value is not a long, an illegal argument
+     * exception is thrown.
+     *
+     * @param key           The key of the option
+     * @param defaultValue  The value returned if the option is not set
+     * @return              The value of the option
+     */
+    public long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        try {
+            return value == null ? defaultValue : Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Error. Option " + key + " must be a whole number: " + value);
+        }
+    }
+
+    /**
+     * Function returns the value of an option holding a boolean. If the value is neither "true" nor "false", an
+     * illegal argument exception is thrown.
+     *
+     * @param key           The key of the option
+     * @param defaultValue  The value returned if the option is not set
+     * @return              The value of the option
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        if (value == null)
+            return defaultValue;
+        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false"))
+            return Boolean.parseBoolean(value);
+        throw new IllegalArgumentException("Error. Option " + key + " must be true or false: " + value);
+    }
+
+    /**
+     * Function returns every option whose key starts with the prefix, with the prefix removed. The keys are returned
+     * in their dotted form, so the options can be handed straight to a Kafka client.
+     *
+     * @param prefix        The prefix of the keys, such as "consumer."
+     * @return              The options under the prefix
+     */
+    public Properties getPrefixed(String prefix) {
+        String normalised = normalise(prefix);
+        Properties props = new Properties();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (entry.getKey().startsWith(normalised) && entry.getKey().length() > normalised.length())
+                props.put(entry.getKey().substring(normalised.length()), entry.getValue().trim());
+        }
+        return props;
+    }
+
+    /**
+     * Function returns the key in the form every source is stored in, lower case with dashes and underscores
+     * replaced by dots.
+     *
+     * @param key           The key as written in its source
+     * @return              The normalised key
+     */
+    private static String normalise(String key) {
+        return key.trim().toLowerCase(Locale.ROOT).replace('_', '.').replace('-', '.');
+    }
+
+    /**
+     * Function returns the value of the key from the first source that sets it.
+     *
+     * @param key           The normalised key
+     * @param sources       The sources, highest priority first
+     * @return              The value, or null if no source sets it
+     */
+    @SafeVarargs
+    private static String first(String key, Map<String, String>... sources) {
+        for (Map<String, String> source : sources) {
+            String value = source.get(key);
+            if (value != null)
+                return value.trim();
+        }
+        return null;
+    }
+
+    /**
+     * Method reads a properties file into the map with normalised keys.
+     *
+     * @param target        The map the options are added to
+     * @param reader        The reader of the properties file
+     * @throws IOException  Throws if the file cannot be read
+     */
+    private static void putAll(Map<String, String> target, Reader reader) throws IOException {
+        Properties props = new Properties();
+        props.load(reader);
+        for (String name : props.stringPropertyNames())
+            target.put(normalise(name), props.getProperty(name));
+    }
+}
@@ -0,0 +1,207 @@
+package com.seng4400.console;
+
+import com.seng4400.json.Answer;
+import com.seng4400.json.AnswerWriter;
+import com.seng4400.prime.IntSlice;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Output of the answers to console, written by a thread of its own so that the speed of the terminal or of the pipe
+ * the output is sent to never holds up the records. Answers are placed on a bounded queue and written through a large
+ * buffer which is flushed whenever the queue runs dry. When the queue is full the answer is dropped rather than
+ * waiting, and the number dropped is counted.
+ *
+ * Depending on the mode either nothing is written, a one line summary of every answer, the pretty JSON of one in
+ * every n answers, or the pretty JSON of every answer.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class ConsoleOutput implements Closeable {
+
+    /**
+     * The amount written to console for the answers.
+     */
+    public enum Mode {
+        /** Nothing is written. */
+        OFF,
+        /** One line for every answer with the count, first and last prime and the time taken. */
+        SUMMARY,
+        /** The pretty JSON of one in every n answers. */
+        SAMPLED,
+        /** The pretty JSON of every answer. */
+        FULL;
+
+        /**
+         * Function returns the mode with the given name, ignoring case. If there is no such mode, an illegal argument
+         * exception is thrown.
+         *
+         * @param name      The name of the mode, such as "summary"
+         * @return          The mode
+         */
+        public static Mode of(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Error. Unknown console mode: " + name);
+            }
+        }
+    }
+
+    private static final Answer SHUTDOWN = new Answer(IntSlice.empty(), 0);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Mode mode;
+    private final int sampleEvery;
+    private final BlockingQueue<Answer> queue;
+    private final OutputStream out;
+    private final AnswerWriter writer = new AnswerWriter(true);
+    private final AtomicLong seen = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread thread;
+
+    /**
+     * Constructor creating the output and starting its writer thread, unless the mode is off.
+     *
+     * @param out           The stream the answers are written to
+     * @param mode          The amount written for the answers
+     * @param sampleEvery   The number of answers for each one written in the sampled mode
+     * @param queueSize     The number of answers waiting to be written before answers are dropped
+     */
+    public ConsoleOutput(OutputStream out, Mode mode, int sampleEvery, int queueSize) {
+        if (sampleEvery <= 0 || queueSize <= 0)
+            throw new IllegalArgumentException("Error. Console sample rate and queue size must be positive.");
+        this.mode = mode;
+        this.sampleEvery = sampleEvery;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.out = new BufferedOutputStream(out, BUFFER_SIZE);
+        if (mode == Mode.OFF) {
+            this.thread = null;
+            return;
+        }
+        this.thread = new Thread(this::drain, "console-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Method hands an answer to the output. The caller never waits, if the answer is not sampled it is skipped and if
+     * the queue is full it is dropped.
+     *
+     * @param answer        The answer to write
+     */
+    public void print(Answer answer) {
+        if (mode == Mode.OFF)
+            return;
+        if (mode == Mode.SAMPLED && seen.getAndIncrement() % sampleEvery != 0)
+            return;
+        if (!queue.offer(answer))
+            dropped.increment();
+    }
+
+    /**
+     * Function returns the number of answers dropped because the writer could not keep up.
+     *
+     * @return              The count of dropped answers
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Method run by the writer thread, writing answers from the queue until the output is closed. The buffer is
+     * flushed each time the queue is empty so that output is not held back while the client is idle.
+     */
+    private void drain() {
+        try {
+            while (true) {
+                Answer answer = queue.take();
+                if (answer == SHUTDOWN)
+                    break;
+                write(answer);
+                if (queue.isEmpty())
+                    out.flush();
+            }
+            out.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Failed to write to console: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Method writes one answer in the form of the mode.
+     *
+     * @param answer        The answer to write
+     * @throws IOException  Throws if the stream cannot be written
+     */
+    private void write(Answer answer) throws IOException {
+        if (mode == Mode.SUMMARY) {
+            out.write(summary(answer).getBytes(StandardCharsets.UTF_8));
+        } else {
+            writer.write(out, answer);
+        }
+        out.write('\n');
+    }
+
+    /**
+     * Function returns the one line summary of an answer, such as
+     * "key=7 primes=78498 first=2 last=999983 time_taken=1.234 ms".
+     *
+     * @param answer        The answer to summarise
+     * @return              The summary, without a line break
+     */
+    static String summary(Answer answer) {
+        IntSlice primes = answer.getPrimes();
+        StringBuilder line = new StringBuilder(96);
+        if (answer.getKey() != null)
+            line.append("key=").append(answer.getKey()).append(' ');
+        line.append("primes=").append(primes.length());
+        if (primes.length() > 0) {
+            line.append(" first=").append(primes.get(0));
+            line.append(" last=").append(primes.get(primes.length() - 1));
+        }
+        line.append(" time_taken=").append(String.format(Locale.ROOT, "%.3f", answer.getTimeTakenNanos() / 1e6))
+                .append(" ms");
+        return line.toString();
+    }
+
+    /**
+     * Method waits for the queued answers to be written and stops the writer thread.
+     */
+    @Override
+    public void close() throws IOException {
+        if (thread == null)
+            return;
+        try {
+            queue.put(SHUTDOWN);
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        out.flush();
+    }
+
+    /**
+     * Function returns whether the writer thread has stopped. The wait of {@link #close()} is bounded, so the thread
+     * may still be writing an answer once the output is closed.
+     *
+     * @return              True if there is no writer thread or it has stopped
+     */
+    public boolean isTerminated() {
+        return thread == null || !thread.isAlive();
+    }
+}
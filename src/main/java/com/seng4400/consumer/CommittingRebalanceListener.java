@@ -0,0 +1,53 @@
+package com.seng4400.consumer;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Rebalance listener committing the finished prefix of every partition before it is taken away from this consumer, so
+ * that the next owner starts after the records already finished here. Records of the partition still in flight are
+ * no longer tracked and will be processed again by the next owner.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class CommittingRebalanceListener implements ConsumerRebalanceListener {
+
+    private final Consumer<?, ?> consumer;
+    private final OffsetTracker tracker;
+
+    /**
+     * Constructor creating the listener.
+     *
+     * @param consumer      The consumer committing the offsets
+     * @param tracker       The tracker of the records in flight
+     */
+    public CommittingRebalanceListener(Consumer<?, ?> consumer, OffsetTracker tracker) {
+        this.consumer = consumer;
+        this.tracker = tracker;
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = tracker.commitable();
+        try {
+            if (!offsets.isEmpty())
+                consumer.commitSync(offsets);
+        } catch (KafkaException e) {
+            System.err.println("Failed to commit offsets on revoke: " + e.getMessage());
+        } finally {
+            tracker.remove(partitions);
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+    }
+}
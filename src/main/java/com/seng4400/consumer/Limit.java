@@ -0,0 +1,99 @@
+package com.seng4400.consumer;
+
+/**
+ * The value of a record, being the limit up to which primes are asked for. A record that does not hold a valid limit
+ * is given a limit carrying the reason, so that a bad record can be handled like any other rather than throwing from
+ * the poll loop.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public final class Limit {
+
+    /**
+     * The reasons a record may not hold a valid limit.
+     */
+    public enum Error {
+        /** The record has no value. */
+        MISSING,
+        /** The value is not a decimal integer. */
+        MALFORMED,
+        /** The value does not fit in an int. */
+        OVERFLOW
+    }
+
+    private final int value;
+    private final Error error;
+    private final byte[] raw;
+
+    private Limit(int value, Error error, byte[] raw) {
+        this.value = value;
+        this.error = error;
+        this.raw = raw;
+    }
+
+    /**
+     * Function returns a valid limit.
+     *
+     * @param value         The value of the limit
+     * @return              The limit
+     */
+    public static Limit of(int value) {
+        return new Limit(value, null, null);
+    }
+
+    /**
+     * Function returns a limit for a record that could not be read.
+     *
+     * @param error         The reason the record could not be read
+     * @param raw           The bytes of the record, or null if it had none
+     * @return              The invalid limit
+     */
+    public static Limit invalid(Error error, byte[] raw) {
+        return new Limit(0, error, raw);
+    }
+
+    /**
+     * Function returns whether the record held a valid limit.
+     *
+     * @return              True if the limit is valid
+     */
+    public boolean isValid() {
+        return error == null;
+    }
+
+    /**
+     * Function returns the value of a valid limit. If the limit is not valid, an illegal state exception is thrown.
+     *
+     * @return              The value of the limit
+     */
+    public int getValue() {
+        if (error != null)
+            throw new IllegalStateException("Error. Limit is not valid: " + error);
+        return value;
+    }
+
+    /**
+     * Function returns the reason the record could not be read.
+     *
+     * @return              The reason, or null if the limit is valid
+     */
+    public Error getError() {
+        return error;
+    }
+
+    /**
+     * Function returns the bytes of a record that could not be read.
+     *
+     * @return              The bytes of the record, or null if the limit is valid or the record had no value
+     */
+    public byte[] getRaw() {
+        return raw;
+    }
+
+    @Override
+    public String toString() {
+        return error == null ? Integer.toString(value) : "invalid(" + error + ")";
+    }
+}
@@ -0,0 +1,45 @@
+package com.seng4400.consumer;
+
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Kafka deserializer reading the limit of a record straight from the ASCII digits of its value. No string is created
+ * and the value is parsed once. The same values as {@link Integer#parseInt(String)} are accepted, an optional sign
+ * followed by decimal digits, and anything else is returned as an invalid limit rather than thrown.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class LimitDeserializer implements Deserializer<Limit> {
+
+    @Override
+    public Limit deserialize(String topic, byte[] data) {
+        if (data == null || data.length == 0)
+            return Limit.invalid(Limit.Error.MISSING, data);
+        int index = 0;
+        boolean negative = false;
+        if (data[0] == '-' || data[0] == '+') {
+            negative = data[0] == '-';
+            index++;
+            if (data.length == 1)
+                return Limit.invalid(Limit.Error.MALFORMED, data);
+        }
+        long value = 0;                                                         // Built up as a negative number
+        long bound = negative ? Integer.MIN_VALUE : -(long) Integer.MAX_VALUE;
+        for (; index < data.length; index++) {
+            int digit = data[index] - '0';
+            if (digit < 0 || digit > 9)
+                return Limit.invalid(Limit.Error.MALFORMED, data);
+            value = value * 10 - digit;
+            if (value < bound) {                                                // Check the remaining bytes are digits
+                for (int i = index + 1; i < data.length; i++) {
+                    if (data[i] < '0' || data[i] > '9')
+                        return Limit.invalid(Limit.Error.MALFORMED, data);
+                }
+                return Limit.invalid(Limit.Error.OVERFLOW, data);
+            }
+        }
+        return Limit.of((int) (negative ? value : -value));
+    }
+}
@@ -0,0 +1,219 @@
+package com.seng4400.consumer;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracker of the records that have been handed out for processing but not yet finished. Records of a partition may
+ * finish in any order, so the tracker only allows the contiguous prefix of finished records to be committed. A crash
+ * then redelivers every record that had not finished, giving at-least-once processing.
+ *
+ * A record that fails holds its partition until every record of the partition has finished, at which point the
+ * partition is rewound to the failed record so that it is consumed again. The partition is paused while it is held, so
+ * the records kept behind the failure are bounded by those already handed out.
+ *
+ * Records are tracked on the poll thread and marked finished on any thread, so every method is thread safe.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class OffsetTracker {
+
+    private final Map<TopicPartition, Partition> partitions = new HashMap<>();
+    private int inFlight;
+
+    /**
+     * Method records that the record at the offset has been handed out. Offsets of a partition must be tracked in
+     * increasing order.
+     *
+     * @param partition     The partition of the record
+     * @param offset        The offset of the record
+     */
+    public synchronized void track(TopicPartition partition, long offset) {
+        partitions.computeIfAbsent(partition, key -> new Partition()).track(offset);
+        inFlight++;
+    }
+
+    /**
+     * Method records that the record at the offset has finished. Records of a partition that is no longer tracked,
+     * because it was revoked, are ignored.
+     *
+     * @param partition     The partition of the record
+     * @param offset        The offset of the record
+     */
+    public synchronized void complete(TopicPartition partition, long offset) {
+        Partition tracked = partitions.get(partition);
+        if (tracked != null && tracked.complete(offset) && --inFlight == 0)
+            notifyAll();
+    }
+
+    /**
+     * Method records that the record at the offset has finished without being handled, such as when its dead letter
+     * could not be written. The record no longer counts as in flight, but the committed offset of the partition is
+     * held before it until the partition is rewound, so that it and every later record are consumed again rather than
+     * lost. Records of a partition that is no longer tracked are ignored.
+     *
+     * @param partition     The partition of the record
+     * @param offset        The offset of the record
+     */
+    public synchronized void fail(TopicPartition partition, long offset) {
+        Partition tracked = partitions.get(partition);
+        if (tracked != null && tracked.fail(offset) && --inFlight == 0)
+            notifyAll();
+    }
+
+    /**
+     * Function waits until every record handed out has finished, or until the timeout has passed.
+     *
+     * @param timeoutMillis The most milliseconds to wait
+     * @return              True if every record has finished
+     * @throws InterruptedException Throws if the thread is interrupted while waiting
+     */
+    public synchronized boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (inFlight > 0) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0)
+                return false;
+            wait(remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Function returns the number of records handed out that have not finished.
+     *
+     * @return              The number of records in flight
+     */
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Function returns the offsets that can be committed for every partition whose finished prefix has grown since the
+     * last call. The committed offset is that of the next record to consume, as Kafka expects.
+     *
+     * @return              The offsets to commit, empty if there is nothing new
+     */
+    public synchronized Map<TopicPartition, OffsetAndMetadata> commitable() {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (Map.Entry<TopicPartition, Partition> entry : partitions.entrySet()) {
+            Partition partition = entry.getValue();
+            if (partition.commitOffset > partition.committedOffset) {
+                offsets.put(entry.getKey(), new OffsetAndMetadata(partition.commitOffset));
+                partition.committedOffset = partition.commitOffset;
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * Function returns the partitions holding a failed record, which should not be consumed further until they are
+     * rewound.
+     *
+     * @return              The partitions holding a failed record
+     */
+    public synchronized Set<TopicPartition> held() {
+        Set<TopicPartition> held = new HashSet<>();
+        for (Map.Entry<TopicPartition, Partition> entry : partitions.entrySet()) {
+            if (entry.getValue().failedOffset >= 0)
+                held.add(entry.getKey());
+        }
+        return held;
+    }
+
+    /**
+     * Function returns the offset of the first failed record of every held partition whose records have all finished,
+     * and forgets the records of those partitions so that they can be consumed again from that offset. The finished
+     * prefix before the failure can still be committed.
+     *
+     * @return              The offsets to consume each partition from again, empty if none is ready
+     */
+    public synchronized Map<TopicPartition, Long> rewind() {
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        for (Map.Entry<TopicPartition, Partition> entry : partitions.entrySet()) {
+            Partition partition = entry.getValue();
+            if (partition.failedOffset >= 0 && partition.pending == 0)
+                offsets.put(entry.getKey(), partition.rewind());
+        }
+        return offsets;
+    }
+
+    /**
+     * Method stops tracking the partitions, used when they are revoked from this consumer. Records of the partitions
+     * still in flight no longer count towards {@link #inFlight()}.
+     *
+     * @param revoked       The partitions to stop tracking
+     */
+    public synchronized void remove(Collection<TopicPartition> revoked) {
+        for (TopicPartition partition : revoked) {
+            Partition tracked = partitions.remove(partition);
+            if (tracked != null)
+                inFlight -= tracked.pending;
+        }
+        if (inFlight == 0)
+            notifyAll();
+    }
+
+    /**
+     * The records of one partition, in the order they were handed out.
+     */
+    private static final class Partition {
+
+        private static final long FINISHED = 1;
+        private static final long FAILED = 2;
+
+        private final ArrayDeque<long[]> records = new ArrayDeque<>();          // Pairs of offset and state
+        private final Map<Long, long[]> byOffset = new HashMap<>();
+        private long commitOffset = -1;
+        private long committedOffset = -1;
+        private long failedOffset = -1;
+        private int pending;
+
+        void track(long offset) {
+            long[] record = {offset, 0};
+            records.addLast(record);
+            byOffset.put(offset, record);
+            pending++;
+        }
+
+        boolean complete(long offset) {
+            long[] record = byOffset.remove(offset);
+            if (record == null)
+                return false;
+            record[1] = FINISHED;
+            pending--;
+            while (!records.isEmpty() && records.peekFirst()[1] == FINISHED)     // Advance over the finished prefix
+                commitOffset = records.pollFirst()[0] + 1;
+            return true;
+        }
+
+        boolean fail(long offset) {
+            long[] record = byOffset.remove(offset);
+            if (record == null)
+                return false;
+            record[1] = FAILED;                                                 // Never advanced over
+            pending--;
+            if (failedOffset < 0 || offset < failedOffset)
+                failedOffset = offset;
+            return true;
+        }
+
+        long rewind() {
+            long offset = failedOffset;
+            records.clear();
+            byOffset.clear();
+            failedOffset = -1;
+            return offset;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.seng4400.consumer;
+
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of worker threads processing records away from the poll thread. Every partition is always given to the same
+ * worker, so records of a partition are processed one at a time in offset order while different partitions are
+ * processed in parallel.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class PartitionWorkers implements RecordExecutor {
+
+    private final ExecutorService[] workers;
+
+    /**
+     * Constructor creating the pool and its threads.
+     *
+     * @param threads       The number of worker threads
+     */
+    public PartitionWorkers(int threads) {
+        if (threads <= 0)
+            throw new IllegalArgumentException("Error. Number of workers must be positive.");
+        workers = new ExecutorService[threads];
+        for (int i = 0; i < threads; i++) {
+            String name = "record-worker-" + i;
+            workers[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Method queues the task on the worker owning the partition.
+     *
+     * @param partition     The partition of the record being processed
+     * @param task          The processing of the record
+     */
+    @Override
+    public void execute(TopicPartition partition, Runnable task) {
+        workers[Math.floorMod(partition.hashCode(), workers.length)].execute(task);
+    }
+
+    @Override
+    public void close() {
+        for (ExecutorService worker : workers)
+            worker.shutdown();
+        try {
+            for (ExecutorService worker : workers)
+                worker.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isTerminated() {
+        for (ExecutorService worker : workers) {
+            if (!worker.isTerminated())
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,35 @@
+package com.seng4400.consumer;
+
+import org.apache.kafka.common.TopicPartition;
+
+/**
+ * An executor runs the processing of each record away from the poll thread.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public interface RecordExecutor extends AutoCloseable {
+
+    /**
+     * Method queues the processing of a record.
+     *
+     * @param partition     The partition of the record being processed
+     * @param task          The processing of the record
+     */
+    void execute(TopicPartition partition, Runnable task);
+
+    /**
+     * Method lets the queued tasks finish and stops the executor. The wait for the tasks is bounded, so a task may
+     * still be running when this returns, which {@link #isTerminated()} tells.
+     */
+    @Override
+    void close();
+
+    /**
+     * Function returns whether every task has finished and the executor has stopped.
+     *
+     * @return              True if no task is running or queued after the executor was closed
+     */
+    boolean isTerminated();
+}
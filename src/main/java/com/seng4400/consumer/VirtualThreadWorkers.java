@@ -0,0 +1,80 @@
+package com.seng4400.consumer;
+
+import org.apache.kafka.common.TopicPartition;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor running every record on a virtual thread of its own. A virtual thread blocked on the endpoint does not hold
+ * a platform thread, so thousands of records can wait on slow responses at once. Records of a partition may finish in
+ * any order, the offset tracker still only commits them in order.
+ *
+ * Virtual threads need Java 21 or later. The client is built for Java 8, so the executor is looked up by reflection and
+ * {@link #isAvailable()} tells whether the running JVM supports it.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class VirtualThreadWorkers implements RecordExecutor {
+
+    private final ExecutorService executor;
+
+    /**
+     * Constructor creating the executor. If the running JVM has no virtual threads, an illegal state exception is
+     * thrown.
+     */
+    public VirtualThreadWorkers() {
+        this.executor = newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Function returns whether the running JVM supports virtual threads.
+     *
+     * @return              True if virtual threads are available
+     */
+    public static boolean isAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Function creates an executor starting a new virtual thread for each task.
+     *
+     * @return              The executor
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Error. Virtual threads need Java 21 or later.", e);
+        }
+    }
+
+    @Override
+    public void execute(TopicPartition partition, Runnable task) {
+        executor.execute(task);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return executor.isTerminated();
+    }
+}
@@ -0,0 +1,52 @@
+package com.seng4400.http;
+
+import com.google.api.client.http.AbstractHttpContent;
+import com.seng4400.json.Answer;
+import com.seng4400.json.AnswerWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * HTTP content streaming the JSON answer straight into the body of the request. The answer is never held in memory as
+ * a string or byte array, the only extra memory used is the buffer of the answer writer, however many primes are sent.
+ * The length is worked out up front so the request is sent with a Content-Length header rather than chunked, unless the
+ * answer carries a breakdown whose length is only known once it has been written.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class AnswerContent extends AbstractHttpContent {
+
+    private final AnswerWriter writer;
+    private final Answer answer;
+
+    /**
+     * Constructor creating the content of one answer.
+     *
+     * @param writer        The compact writer used to write the answer
+     * @param answer        The answer to send
+     */
+    public AnswerContent(AnswerWriter writer, Answer answer) {
+        super("application/json");
+        this.writer = writer;
+        this.answer = answer;
+    }
+
+    @Override
+    protected long computeLength() {
+        return AnswerWriter.compactLength(answer);
+    }
+
+    @Override
+    public boolean retrySupported() {
+        return true;                                                            // The answer can be written again
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        writer.write(out, answer);
+        out.flush();
+    }
+}
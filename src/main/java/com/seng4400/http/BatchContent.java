@@ -0,0 +1,101 @@
+package com.seng4400.http;
+
+import com.google.api.client.http.AbstractHttpContent;
+import com.seng4400.json.Answer;
+import com.seng4400.json.AnswerWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * HTTP content streaming a batch of answers into the body of one request, either as a JSON array of answers or as
+ * newline delimited JSON with one answer per line. The answers are written in the order they are given.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class BatchContent extends AbstractHttpContent {
+
+    /**
+     * The layouts a batch can be written in.
+     */
+    public enum Format {
+        JSON("application/json"),
+        NDJSON("application/x-ndjson");
+
+        private final String mediaType;
+
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+    }
+
+    private final AnswerWriter writer;
+    private final List<Answer> answers;
+    private final Format format;
+
+    /**
+     * Constructor creating the content of a batch.
+     *
+     * @param writer        The compact writer used to write each answer
+     * @param answers       The answers in the batch
+     * @param format        The layout of the batch
+     */
+    public BatchContent(AnswerWriter writer, List<Answer> answers, Format format) {
+        super(format.mediaType);
+        this.writer = writer;
+        this.answers = answers;
+        this.format = format;
+    }
+
+    /**
+     * Function returns the number of bytes a batch takes, without writing it. If the length of any answer is not known
+     * in advance, -1 is returned.
+     *
+     * @param answers       The answers in the batch
+     * @return              The length of the batch in bytes, or -1 if it is not known in advance
+     */
+    public static long length(List<Answer> answers) {
+        long total = answers.isEmpty() ? 2 : answers.size() + 1;                // Brackets and separators
+        for (Answer answer : answers) {
+            long length = AnswerWriter.compactLength(answer);
+            if (length < 0)
+                return -1;
+            total += length;
+        }
+        return total;
+    }
+
+    @Override
+    protected long computeLength() {
+        long length = length(answers);
+        if (length < 0)
+            return -1;                                                          // Sent chunked
+        if (format == Format.NDJSON)
+            return length - (answers.isEmpty() ? 2 : 1);
+        return length;
+    }
+
+    @Override
+    public boolean retrySupported() {
+        return true;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        if (format == Format.JSON)
+            out.write('[');
+        for (int i = 0; i < answers.size(); i++) {
+            if (i > 0 && format == Format.JSON)
+                out.write(',');
+            writer.write(out, answers.get(i));
+            if (format == Format.NDJSON)
+                out.write('\n');
+        }
+        if (format == Format.JSON)
+            out.write(']');
+        out.flush();
+    }
+}
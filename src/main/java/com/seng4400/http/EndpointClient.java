@@ -0,0 +1,165 @@
+package com.seng4400.http;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpContent;
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.apache.v2.ApacheHttpTransport;
+import com.google.auth.http.HttpCredentialsAdapter;
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.auth.oauth2.IdTokenCredentials;
+import com.google.auth.oauth2.IdTokenProvider;
+import com.seng4400.metrics.Histogram;
+import org.apache.http.impl.client.CloseableHttpClient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long lived client used to make authenticated POST requests to the endpoint. The application default credentials are
+ * read once, the identification token built from them is refreshed in the background shortly before it expires, and
+ * requests are sent through a pool of keep-alive connections so that a TLS handshake is not needed for every record.
+ *
+ * The client is thread safe and should be closed when it is no longer needed to release the pooled connections.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class EndpointClient implements Closeable {
+
+    /**
+     * The audience of the identification token, which is currently the name of the default service account.
+     */
+    public static final String AUDIENCE = "App Engine default service account";
+
+    private static final long RETRY_SECONDS = 30;
+
+    private final GenericUrl url;
+    private final IdTokenCredentials tokenCredential;
+    private final CloseableHttpClient httpClient;
+    private final HttpRequestFactory requestFactory;
+    private final ScheduledExecutorService refresher;
+    private final long refreshMarginSeconds;
+    private final Histogram sendTimes;
+
+    /**
+     * Constructor creating a client for the service URL which records the time taken by each request, and which can
+     * leave out the identification token for endpoints that do not check it, such as a local stand-in for testing.
+     * When authenticating, the credentials are read and the first token is fetched straight away so that any problem
+     * is found at start up rather than on the first record.
+     *
+     * @param serviceUrl            The value of the URL used to call a service
+     * @param poolSize              The largest number of connections kept open to the endpoint
+     * @param idleSeconds           The time after which an idle connection is closed
+     * @param refreshMarginSeconds  How long before it expires the token is refreshed
+     * @param sendTimes             The histogram the time taken by each request is recorded to
+     * @param authenticate          Whether requests carry the identification token
+     * @throws IOException          Throws if the credentials cannot be read or the token cannot be fetched
+     */
+    public EndpointClient(String serviceUrl, int poolSize, long idleSeconds, long refreshMarginSeconds,
+                          Histogram sendTimes, boolean authenticate) throws IOException {
+        if (poolSize <= 0)
+            throw new IllegalArgumentException("Error. Connection pool size must be positive.");
+        this.url = new GenericUrl(serviceUrl);
+        this.refreshMarginSeconds = refreshMarginSeconds;
+        this.sendTimes = sendTimes;
+        this.httpClient = ApacheHttpTransport.newDefaultHttpClientBuilder()
+                .setMaxConnTotal(poolSize)
+                .setMaxConnPerRoute(poolSize)
+                .evictIdleConnections(idleSeconds, TimeUnit.SECONDS)
+                .evictExpiredConnections()
+                .build();
+        if (!authenticate) {
+            this.tokenCredential = null;
+            this.refresher = null;
+            this.requestFactory = new ApacheHttpTransport(httpClient).createRequestFactory();
+            return;
+        }
+        GoogleCredentials credentials = GoogleCredentials.getApplicationDefault();
+        if (!(credentials instanceof IdTokenProvider)) {
+            httpClient.close();
+            throw new IllegalArgumentException("Credentials are not an instance of IdTokenProvider.");
+        }
+        this.tokenCredential =
+                IdTokenCredentials.newBuilder()
+                        .setIdTokenProvider((IdTokenProvider) credentials)
+                        .setTargetAudience(AUDIENCE)
+                        .build();
+        this.requestFactory = new ApacheHttpTransport(httpClient)
+                .createRequestFactory(new HttpCredentialsAdapter(tokenCredential));
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        tokenCredential.refresh();
+        scheduleRefresh();
+    }
+
+    /**
+     * Method posts the content to the endpoint. The response body is read and discarded so that the connection is
+     * returned to the pool.
+     *
+     * @param content       The body of the request
+     * @throws IOException  Throws if the request fails or the endpoint responds with an error
+     */
+    public void post(HttpContent content) throws IOException {
+        long startTime = System.nanoTime();
+        HttpResponse response = requestFactory.buildPostRequest(url, content).execute();
+        response.ignore();
+        sendTimes.recordSince(startTime);
+    }
+
+    /**
+     * Function posts the content to the endpoint and returns the body of the response.
+     *
+     * @param content       The body of the request
+     * @return              The body of the response
+     * @throws IOException  Throws if the request fails or the endpoint responds with an error
+     */
+    public String exchange(HttpContent content) throws IOException {
+        long startTime = System.nanoTime();
+        HttpResponse response = requestFactory.buildPostRequest(url, content).execute();
+        try {
+            return response.parseAsString();
+        } finally {
+            response.ignore();
+            sendTimes.recordSince(startTime);
+        }
+    }
+
+    /**
+     * Method schedules the next refresh of the token for shortly before the current token expires. If the expiry is
+     * not known or the refresh fails, the refresh is tried again after a short delay.
+     */
+    private void scheduleRefresh() {
+        AccessToken token = tokenCredential.getAccessToken();
+        Date expiry = token == null ? null : token.getExpirationTime();
+        long delay = RETRY_SECONDS;
+        if (expiry != null) {
+            long remaining = (expiry.getTime() - System.currentTimeMillis()) / 1000;
+            delay = Math.max(RETRY_SECONDS, remaining - refreshMarginSeconds);
+        }
+        refresher.schedule(() -> {
+            try {
+                tokenCredential.refresh();
+            } catch (IOException e) {
+                System.err.println("Failed to refresh the identification token: " + e.getMessage());
+            }
+            scheduleRefresh();
+        }, delay, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (refresher != null)
+            refresher.shutdownNow();
+        httpClient.close();
+    }
+}
@@ -0,0 +1,111 @@
+package com.seng4400.json;
+
+import com.seng4400.prime.IntSlice;
+
+/**
+ * The answer to one question, being the prime numbers up to the value asked for and the time taken to find them. The
+ * answer also carries the key of the record that asked the question so that a reply can be keyed the same way, the
+ * key is not part of the JSON.
+ *
+ * The time taken is held in nanoseconds and written in the units of the schema of the answer, along with the legacy
+ * field in whole milliseconds.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class Answer {
+
+    private final IntSlice primes;
+    private final long timeTakenNanos;
+    private final String key;
+    private final Schema schema;
+    private final Breakdown breakdown;
+
+    /**
+     * Constructor creating an answer with no key.
+     *
+     * @param primes        The prime numbers of the answer
+     * @param timeTaken     The time taken to find the primes in milliseconds
+     */
+    public Answer(IntSlice primes, long timeTaken) {
+        this(primes, timeTaken * 1_000_000, null, Schema.V1, null);
+    }
+
+    private Answer(IntSlice primes, long timeTakenNanos, String key, Schema schema, Breakdown breakdown) {
+        this.primes = primes;
+        this.timeTakenNanos = timeTakenNanos;
+        this.key = key;
+        this.schema = schema;
+        this.breakdown = breakdown;
+    }
+
+    /**
+     * Function returns an answer timed to the nanosecond, written with the given schema.
+     *
+     * @param primes        The prime numbers of the answer
+     * @param timeTakenNanos The time taken to find the primes in nanoseconds
+     * @param key           The key of the record asking the question, or null
+     * @param schema        The schema the answer is written with
+     * @param breakdown     Where the time taken went, or null to leave the breakdown out
+     * @return              The answer
+     */
+    public static Answer ofNanos(IntSlice primes, long timeTakenNanos, String key, Schema schema,
+                                 Breakdown breakdown) {
+        return new Answer(primes, timeTakenNanos, key, schema, breakdown);
+    }
+
+    /**
+     * Function returns the prime numbers of the answer.
+     *
+     * @return              The prime numbers
+     */
+    public IntSlice getPrimes() {
+        return primes;
+    }
+
+    /**
+     * Function returns the time taken to find the primes, rounded down to the millisecond.
+     *
+     * @return              The time taken in milliseconds
+     */
+    public long getTimeTaken() {
+        return timeTakenNanos / 1_000_000;
+    }
+
+    /**
+     * Function returns the time taken to find the primes.
+     *
+     * @return              The time taken in nanoseconds
+     */
+    public long getTimeTakenNanos() {
+        return timeTakenNanos;
+    }
+
+    /**
+     * Function returns the schema the answer is written with.
+     *
+     * @return              The schema
+     */
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Function returns where the time taken went.
+     *
+     * @return              The breakdown, or null if it is left out
+     */
+    public Breakdown getBreakdown() {
+        return breakdown;
+    }
+
+    /**
+     * Function returns the key of the record asking the question.
+     *
+     * @return              The key, or null if the record had none
+     */
+    public String getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,62 @@
+package com.seng4400.json;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Kafka serializer writing an answer as compact JSON. The length of the answer is worked out first so that the digits
+ * are written straight into a byte array of the exact size. An answer with a breakdown is written into an array of its
+ * largest length which is then trimmed.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class AnswerSerializer implements Serializer<Answer> {
+
+    private static final ThreadLocal<AnswerWriter> WRITER = ThreadLocal.withInitial(() -> new AnswerWriter(false));
+
+    @Override
+    public byte[] serialize(String topic, Answer answer) {
+        if (answer == null)
+            return null;
+        long length = AnswerWriter.maxCompactLength(answer);
+        if (length > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Error. Answer is too large to serialize: " + length + " bytes");
+        ArrayOutput out = new ArrayOutput((int) length);
+        try {
+            WRITER.get().write(out, answer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.position == out.bytes.length ? out.bytes : Arrays.copyOf(out.bytes, out.position);
+    }
+
+    /**
+     * Output stream filling a byte array of a known size.
+     */
+    private static final class ArrayOutput extends OutputStream {
+
+        final byte[] bytes;
+        private int position;
+
+        ArrayOutput(int length) {
+            this.bytes = new byte[length];
+        }
+
+        @Override
+        public void write(int b) {
+            bytes[position++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            System.arraycopy(b, off, bytes, position, len);
+            position += len;
+        }
+    }
+}
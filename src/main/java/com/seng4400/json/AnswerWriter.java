@@ -0,0 +1,294 @@
+package com.seng4400.json;
+
+import com.seng4400.prime.IntSlice;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writer producing the JSON answer, {"answer":[...],"time_taken":n}, straight from a slice of primes. Later schemas add
+ * the time taken in a finer unit, and an answer with a breakdown adds where the time went along with the time taken to
+ * write its primes. Digits are written into a small byte buffer which is flushed to the output stream as it fills, so
+ * no value is boxed and no string or JSON tree is built for the answer. The pretty form matches the layout Gson uses
+ * when pretty printing.
+ *
+ * A writer is not thread safe, but it can be reused for any number of answers.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class AnswerWriter {
+
+    private static final byte[] ANSWER = "\"answer\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TIME_TAKEN = "\"time_taken\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BREAKDOWN = "\"breakdown\":".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_DIGITS = 19;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final boolean pretty;
+    private OutputStream out;
+    private int position;
+
+    /**
+     * Constructor creating a writer producing either compact or pretty JSON.
+     *
+     * @param pretty        True if the JSON should be pretty printed
+     */
+    public AnswerWriter(boolean pretty) {
+        this.pretty = pretty;
+    }
+
+    /**
+     * Method writes the answer to the output stream. The stream is not flushed or closed.
+     *
+     * @param out           The stream to write to
+     * @param answer        The answer to write
+     * @throws IOException  Throws if the stream cannot be written
+     */
+    public void write(OutputStream out, Answer answer) throws IOException {
+        write(out, answer.getPrimes(), answer.getTimeTaken(), answer);
+    }
+
+    /**
+     * Method writes the answer to the output stream. The stream is not flushed or closed.
+     *
+     * @param out           The stream to write to
+     * @param primes        The prime numbers of the answer
+     * @param timeTaken     The time taken to find the primes
+     * @throws IOException  Throws if the stream cannot be written
+     */
+    public void write(OutputStream out, IntSlice primes, long timeTaken) throws IOException {
+        write(out, primes, timeTaken, null);
+    }
+
+    /**
+     * Method writes the answer to the output stream, adding the fields of the schema and the breakdown of the answer
+     * when one is given.
+     *
+     * @param out           The stream to write to
+     * @param primes        The prime numbers of the answer
+     * @param timeTaken     The time taken to find the primes in milliseconds
+     * @param answer        The answer holding the schema and breakdown, or null to write the first schema
+     * @throws IOException  Throws if the stream cannot be written
+     */
+    private void write(OutputStream out, IntSlice primes, long timeTaken, Answer answer) throws IOException {
+        long startTime = System.nanoTime();
+        this.out = out;
+        this.position = 0;
+        try {
+            writeByte('{');
+            newLine(1);
+            writeBytes(ANSWER);
+            if (pretty)
+                writeByte(' ');
+            writeByte('[');
+            int length = primes.length();
+            for (int i = 0; i < length; i++) {
+                if (i > 0)
+                    writeByte(',');
+                newLine(2);
+                writeLong(primes.get(i));
+            }
+            if (length > 0)
+                newLine(1);
+            writeByte(']');
+            writeField(TIME_TAKEN, timeTaken, 1);
+            Schema schema = answer == null ? Schema.V1 : answer.getSchema();
+            if (schema != Schema.V1)
+                writeField(schema.timeTakenName, schema.convert(answer.getTimeTakenNanos()), 1);
+            Breakdown breakdown = answer == null ? null : answer.getBreakdown();
+            if (breakdown != null) {
+                long serializeNanos = System.nanoTime() - startTime;
+                writeByte(',');
+                newLine(1);
+                writeBytes(BREAKDOWN);
+                if (pretty)
+                    writeByte(' ');
+                writeByte('{');
+                newLine(2);
+                writeBytes(schema.computeName);
+                writeValue(schema.convert(breakdown.getComputeNanos()));
+                writeField(schema.cacheName, schema.convert(breakdown.getCacheNanos()), 2);
+                writeField(schema.serializeName, schema.convert(serializeNanos), 2);
+                newLine(1);
+                writeByte('}');
+            }
+            newLine(0);
+            writeByte('}');
+            flushBuffer();
+        } finally {
+            this.out = null;
+        }
+    }
+
+    /**
+     * Function returns the number of bytes the compact form of the answer takes, without writing it. This allows the
+     * length of a streamed body to be known before it is sent.
+     *
+     * @param primes        The prime numbers of the answer
+     * @param timeTaken     The time taken to find the primes
+     * @return              The length of the compact answer in bytes
+     */
+    public static long compactLength(IntSlice primes, long timeTaken) {
+        int length = primes.length();
+        long total = 1 + ANSWER.length + 2 + 1 + TIME_TAKEN.length + digits(timeTaken) + 1;
+        if (length > 1)
+            total += length - 1;                                                // Commas between the primes
+        for (int i = 0; i < length; i++)
+            total += digits(primes.get(i));
+        return total;
+    }
+
+    /**
+     * Function returns the number of bytes the compact form of the answer takes, without writing it. An answer with a
+     * breakdown holds the time taken to write it, so its length is not known until it has been written and -1 is
+     * returned.
+     *
+     * @param answer        The answer to measure
+     * @return              The length of the compact answer in bytes, or -1 if it is not known in advance
+     */
+    public static long compactLength(Answer answer) {
+        if (answer.getBreakdown() != null)
+            return -1;
+        return compactLength(answer, 0);
+    }
+
+    /**
+     * Function returns the largest number of bytes the compact form of the answer may take, which is its length when
+     * the length is known in advance.
+     *
+     * @param answer        The answer to measure
+     * @return              The most bytes the compact answer takes
+     */
+    public static long maxCompactLength(Answer answer) {
+        return compactLength(answer, MAX_DIGITS);
+    }
+
+    /**
+     * Function returns the number of bytes the compact form of the answer takes, given the digits of the time taken
+     * to write it.
+     *
+     * @param answer        The answer to measure
+     * @param serializeDigits The digits of the time taken to write the answer
+     * @return              The length of the compact answer in bytes
+     */
+    private static long compactLength(Answer answer, int serializeDigits) {
+        long total = compactLength(answer.getPrimes(), answer.getTimeTaken());
+        Schema schema = answer.getSchema();
+        if (schema != Schema.V1)
+            total += 1 + schema.timeTakenName.length + digits(schema.convert(answer.getTimeTakenNanos()));
+        Breakdown breakdown = answer.getBreakdown();
+        if (breakdown != null) {
+            total += 1 + BREAKDOWN.length + 2;                                  // Comma and braces
+            total += schema.computeName.length + digits(schema.convert(breakdown.getComputeNanos())) + 1;
+            total += schema.cacheName.length + digits(schema.convert(breakdown.getCacheNanos())) + 1;
+            total += schema.serializeName.length + serializeDigits;
+        }
+        return total;
+    }
+
+    /**
+     * Function returns the number of characters needed to write a value in decimal.
+     *
+     * @param value         The value to measure
+     * @return              The number of characters including any sign
+     */
+    private static int digits(long value) {
+        if (value == Long.MIN_VALUE)
+            return 20;
+        int count = 1;
+        if (value < 0) {
+            count++;
+            value = -value;
+        }
+        for (long rest = value / 10; rest != 0; rest /= 10)
+            count++;
+        return count;
+    }
+
+    /**
+     * Method starts a new line indented to the given depth when pretty printing.
+     *
+     * @param depth         The depth of the following value
+     */
+    private void newLine(int depth) throws IOException {
+        if (!pretty)
+            return;
+        writeByte('\n');
+        for (int i = 0; i < depth; i++) {
+            writeByte(' ');
+            writeByte(' ');
+        }
+    }
+
+    /**
+     * Method writes a comma followed by a field holding a number.
+     *
+     * @param name          The quoted name of the field and its colon
+     * @param value         The value of the field
+     * @param depth         The depth of the field
+     */
+    private void writeField(byte[] name, long value, int depth) throws IOException {
+        writeByte(',');
+        newLine(depth);
+        writeBytes(name);
+        writeValue(value);
+    }
+
+    /**
+     * Method writes the value of a field, after a space when pretty printing.
+     *
+     * @param value         The value of the field
+     */
+    private void writeValue(long value) throws IOException {
+        if (pretty)
+            writeByte(' ');
+        writeLong(value);
+    }
+
+    /**
+     * Method writes the decimal digits of a value, filling them in from the right.
+     *
+     * @param value         The value to write
+     */
+    private void writeLong(long value) throws IOException {
+        if (position + 20 > buffer.length)
+            flushBuffer();
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                writeBytes(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = digits(value);
+        int index = position + digits;
+        do {                                                                    // Write the lowest digit first
+            buffer[--index] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        position += digits;
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        if (position + bytes.length > buffer.length)
+            flushBuffer();
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void writeByte(char value) throws IOException {
+        if (position == buffer.length)
+            flushBuffer();
+        buffer[position++] = (byte) value;
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+}
@@ -0,0 +1,46 @@
+package com.seng4400.json;
+
+/**
+ * Where the time taken by an answer went. The compute time is the share of the answer in finding the primes of its
+ * poll and the cache time is the time taken to look up its own primes among them, together making up the time taken.
+ * The time taken to serialize the answer is not held here, it is measured by the writer while it writes the primes and
+ * written alongside the other two.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public final class Breakdown {
+
+    private final long computeNanos;
+    private final long cacheNanos;
+
+    /**
+     * Constructor creating the breakdown of an answer.
+     *
+     * @param computeNanos  The time taken to find the primes in nanoseconds
+     * @param cacheNanos    The time taken to look up the primes of the answer in nanoseconds
+     */
+    public Breakdown(long computeNanos, long cacheNanos) {
+        this.computeNanos = computeNanos;
+        this.cacheNanos = cacheNanos;
+    }
+
+    /**
+     * Function returns the time taken to find the primes.
+     *
+     * @return              The time in nanoseconds
+     */
+    public long getComputeNanos() {
+        return computeNanos;
+    }
+
+    /**
+     * Function returns the time taken to look up the primes of the answer.
+     *
+     * @return              The time in nanoseconds
+     */
+    public long getCacheNanos() {
+        return cacheNanos;
+    }
+}
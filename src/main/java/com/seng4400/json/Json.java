@@ -0,0 +1,24 @@
+package com.seng4400.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Holder of the Gson instance shared by the whole client, used to read the responses of the endpoint. Creating a Gson
+ * builds its type adapter factories, so the instance is created once when the class is loaded and reused for every
+ * response. Gson instances are thread safe. Answers are written by the {@link AnswerWriter} rather than by Gson.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public final class Json {
+
+    /**
+     * Gson instance reading and writing compact JSON.
+     */
+    public static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private Json() {
+    }
+}
@@ -0,0 +1,88 @@
+package com.seng4400.json;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The versions of the JSON answer. Every version keeps the legacy time_taken field in whole milliseconds for existing
+ * consumers of the endpoint, later versions add the time taken in a finer unit, since a fast sieve answers most
+ * questions in well under a millisecond.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public enum Schema {
+    /** Only the time taken in milliseconds. */
+    V1("ms", 1_000_000),
+    /** Adds time_taken_us, the time taken in microseconds. */
+    V2("us", 1_000),
+    /** Adds time_taken_ns, the time taken in nanoseconds. */
+    V3("ns", 1);
+
+    private final String unit;
+    private final long nanosPerUnit;
+    final byte[] timeTakenName;
+    final byte[] computeName;
+    final byte[] cacheName;
+    final byte[] serializeName;
+
+    Schema(String unit, long nanosPerUnit) {
+        this.unit = unit;
+        this.nanosPerUnit = nanosPerUnit;
+        this.timeTakenName = name("time_taken_" + unit);
+        this.computeName = name("compute_" + unit);
+        this.cacheName = name("cache_" + unit);
+        this.serializeName = name("serialize_" + unit);
+    }
+
+    /**
+     * Function returns the schema with the given version number. If there is no such version, an illegal argument
+     * exception is thrown.
+     *
+     * @param version       The version number, from 1 to 3
+     * @return              The schema
+     */
+    public static Schema of(int version) {
+        if (version < 1 || version > values().length)
+            throw new IllegalArgumentException("Error. Unknown output schema version: " + version);
+        return values()[version - 1];
+    }
+
+    /**
+     * Function returns the suffix of the fields holding times, such as "us".
+     *
+     * @return              The unit of the times
+     */
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * Function returns a time in nanoseconds in the unit of the schema, rounded down.
+     *
+     * @param nanos         The time in nanoseconds
+     * @return              The time in the unit of the schema
+     */
+    public long convert(long nanos) {
+        return nanos / nanosPerUnit;
+    }
+
+    /**
+     * Function returns the name of the fine time taken field, or null for the first version which has none.
+     *
+     * @return              The name of the field, such as "time_taken_us"
+     */
+    public String getTimeTakenField() {
+        return this == V1 ? null : "time_taken_" + unit;
+    }
+
+    /**
+     * Function returns the JSON name of a field, quoted and followed by the colon.
+     *
+     * @param name          The name of the field
+     * @return              The ASCII bytes of the name
+     */
+    private static byte[] name(String name) {
+        return ("\"" + name + "\":").getBytes(StandardCharsets.US_ASCII);
+    }
+}
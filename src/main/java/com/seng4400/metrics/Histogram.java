@@ -0,0 +1,134 @@
+package com.seng4400.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds laid out in the manner of an HDR histogram. Values below 128 each have a
+ * bucket of their own, and every power of two above that is split into 64 buckets of equal width, so a value is kept
+ * to within 1/64 of itself whatever its size. The buckets cover every positive long in under 4k counters.
+ *
+ * Recording is lock free, a single atomic increment of the bucket plus the sum and max, so it can be done on the hot
+ * path of every record. Quantiles are read from a snapshot of the buckets taken without stopping the writers.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Method records one latency. Negative values, which a clock step can produce, are recorded as zero.
+     *
+     * @param nanos         The latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Method records the time passed since the start time.
+     *
+     * @param startNanos    The value of {@link System#nanoTime()} at the start
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Function returns the number of values recorded.
+     *
+     * @return              The count of values
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++)
+            count += counts.get(i);
+        return count;
+    }
+
+    /**
+     * Function returns the sum of every value recorded.
+     *
+     * @return              The sum in nanoseconds
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Function returns the largest value recorded.
+     *
+     * @return              The max in nanoseconds, or zero if nothing was recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Function returns the values at the given quantiles from one snapshot of the buckets, so that they agree with
+     * each other. Each value is the middle of its bucket.
+     *
+     * @param quantiles     The quantiles, each between zero and one, in increasing order
+     * @return              The value at each quantile in nanoseconds, zero if nothing was recorded
+     */
+    public long[] getQuantiles(double... quantiles) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        long[] values = new long[quantiles.length];
+        if (total == 0)
+            return values;
+        int bucket = 0;
+        long seen = snapshot[0];
+        for (int q = 0; q < quantiles.length; q++) {
+            long rank = Math.max(1, (long) Math.ceil(quantiles[q] * total));
+            while (seen < rank && bucket < BUCKETS - 1)
+                seen += snapshot[++bucket];
+            values[q] = middleOf(bucket);
+        }
+        return values;
+    }
+
+    /**
+     * Function returns the bucket holding the value.
+     *
+     * @param value         The value, not negative
+     * @return              The index of the bucket
+     */
+    static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKETS)
+            return (int) value;
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS - 1;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * Function returns the value in the middle of the bucket.
+     *
+     * @param index         The index of the bucket
+     * @return              The middle value of the bucket
+     */
+    static long middleOf(int index) {
+        if (index < 2 * SUB_BUCKETS)
+            return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (index - shift * SUB_BUCKETS) << shift;
+        return lowest + ((1L << shift) - 1) / 2;
+    }
+}
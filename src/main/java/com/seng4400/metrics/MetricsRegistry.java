@@ -0,0 +1,135 @@
+package com.seng4400.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Registry of the metrics of the client, written out in the Prometheus text format. Histograms and counters are
+ * registered once at start up and then updated without locks, the registry is only walked when the metrics are read.
+ *
+ * Latencies are kept in nanoseconds and written in seconds, the base unit Prometheus expects, as a summary with the
+ * median and tail quantiles along with a gauge of the max.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class MetricsRegistry {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final String prefix;
+    private final List<Entry> entries = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructor creating an empty registry.
+     *
+     * @param prefix        The prefix of every metric name, such as "seng4400_"
+     */
+    public MetricsRegistry(String prefix) {
+        this.prefix = prefix;
+    }
+
+    /**
+     * Function registers a latency histogram.
+     *
+     * @param name          The name of the metric, without the prefix or the "_seconds" unit
+     * @param help          The description of the metric
+     * @return              The histogram to record to
+     */
+    public Histogram histogram(String name, String help) {
+        Histogram histogram = new Histogram();
+        entries.add(new Entry(prefix + name + "_seconds", help, histogram, null));
+        return histogram;
+    }
+
+    /**
+     * Function registers a counter.
+     *
+     * @param name          The name of the metric, without the prefix or the "_total" suffix
+     * @param help          The description of the metric
+     * @return              The counter to add to
+     */
+    public LongAdder counter(String name, String help) {
+        LongAdder counter = new LongAdder();
+        counter(name, help, counter::sum);
+        return counter;
+    }
+
+    /**
+     * Method registers a counter kept elsewhere, whose value is read when the metrics are written.
+     *
+     * @param name          The name of the metric, without the prefix or the "_total" suffix
+     * @param help          The description of the metric
+     * @param value         The supplier of the current count
+     */
+    public void counter(String name, String help, LongSupplier value) {
+        entries.add(new Entry(prefix + name + "_total", help, null, value));
+    }
+
+    /**
+     * Method writes every metric in the Prometheus text format.
+     *
+     * @param out           The writer the metrics are written to
+     * @throws IOException  Throws if the writer fails
+     */
+    public void write(Writer out) throws IOException {
+        StringBuilder text = new StringBuilder(4096);
+        for (Entry entry : entries) {
+            text.append("# HELP ").append(entry.name).append(' ').append(entry.help).append('\n');
+            if (entry.histogram == null) {
+                text.append("# TYPE ").append(entry.name).append(" counter\n");
+                text.append(entry.name).append(' ').append(entry.value.getAsLong()).append('\n');
+                continue;
+            }
+            Histogram histogram = entry.histogram;
+            long[] values = histogram.getQuantiles(QUANTILES);
+            long count = histogram.getCount();
+            text.append("# TYPE ").append(entry.name).append(" summary\n");
+            for (int i = 0; i < QUANTILES.length; i++) {
+                text.append(entry.name).append("{quantile=\"").append(QUANTILES[i]).append("\"} ")
+                        .append(seconds(values[i])).append('\n');
+            }
+            text.append(entry.name).append("_sum ").append(seconds(histogram.getSum())).append('\n');
+            text.append(entry.name).append("_count ").append(count).append('\n');
+            text.append("# HELP ").append(entry.name).append("_max Largest value of ").append(entry.name).append('\n');
+            text.append("# TYPE ").append(entry.name).append("_max gauge\n");
+            text.append(entry.name).append("_max ").append(seconds(histogram.getMax())).append('\n');
+        }
+        out.write(text.toString());
+    }
+
+    /**
+     * Function returns nanoseconds as seconds in the form Prometheus reads.
+     *
+     * @param nanos         The value in nanoseconds
+     * @return              The value in seconds
+     */
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / NANOS_PER_SECOND);
+    }
+
+    /**
+     * A registered metric, either a histogram or a counter.
+     */
+    private static final class Entry {
+
+        private final String name;
+        private final String help;
+        private final Histogram histogram;
+        private final LongSupplier value;
+
+        Entry(String name, String help, Histogram histogram, LongSupplier value) {
+            this.name = name;
+            this.help = help;
+            this.histogram = histogram;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.seng4400.metrics;
+
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.util.Map;
+
+/**
+ * Kafka deserializer recording the time taken by another deserializer for each record.
+ *
+ * @param <T>   The type of the deserialized value
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class TimedDeserializer<T> implements Deserializer<T> {
+
+    private final Deserializer<T> delegate;
+    private final Histogram times;
+
+    /**
+     * Constructor wrapping a deserializer.
+     *
+     * @param delegate      The deserializer doing the work
+     * @param times         The histogram the time taken is recorded to
+     */
+    public TimedDeserializer(Deserializer<T> delegate, Histogram times) {
+        this.delegate = delegate;
+        this.times = times;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        delegate.configure(configs, isKey);
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        long startTime = System.nanoTime();
+        T value = delegate.deserialize(topic, data);
+        times.recordSince(startTime);
+        return value;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
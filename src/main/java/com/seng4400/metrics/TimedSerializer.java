@@ -0,0 +1,49 @@
+package com.seng4400.metrics;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.util.Map;
+
+/**
+ * Kafka serializer recording the time taken by another serializer for each record.
+ *
+ * @param <T>   The type of the serialized value
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class TimedSerializer<T> implements Serializer<T> {
+
+    private final Serializer<T> delegate;
+    private final Histogram times;
+
+    /**
+     * Constructor wrapping a serializer.
+     *
+     * @param delegate      The serializer doing the work
+     * @param times         The histogram the time taken is recorded to
+     */
+    public TimedSerializer(Serializer<T> delegate, Histogram times) {
+        this.delegate = delegate;
+        this.times = times;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        delegate.configure(configs, isKey);
+    }
+
+    @Override
+    public byte[] serialize(String topic, T data) {
+        long startTime = System.nanoTime();
+        byte[] bytes = delegate.serialize(topic, data);
+        times.recordSince(startTime);
+        return bytes;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
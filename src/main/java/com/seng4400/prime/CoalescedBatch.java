@@ -0,0 +1,122 @@
+package com.seng4400.prime;
+
+/**
+ * The primes shared by every record of one poll. The primes up to the largest value asked for in the poll are found
+ * once, by whichever record needs them first, and every record of the poll is answered with a prefix of them.
+ *
+ * Since the work is shared, the time taken reported for a record is amortised, being its share of the time taken to
+ * find the shared primes, its compute time, plus the time taken to look up its own prefix, its cache time.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class CoalescedBatch {
+
+    private final PrimeCache cache;
+    private final int max;
+    private final int records;
+    private IntSlice primes;
+    private long computeNanos;
+
+    /**
+     * Constructor creating the batch. No primes are found until the first record asks for them.
+     *
+     * @param cache         The cache used to find the primes
+     * @param max           The largest value asked for by a record of the batch
+     * @param records       The number of records sharing the batch
+     */
+    public CoalescedBatch(PrimeCache cache, int max, int records) {
+        if (records <= 0)
+            throw new IllegalArgumentException("Error. A batch must hold at least one record.");
+        this.cache = cache;
+        this.max = max;
+        this.records = records;
+    }
+
+    /**
+     * Function returns the primes up to the largest value of the batch, finding them on the first call.
+     *
+     * @return              The shared primes
+     */
+    private synchronized IntSlice shared() {
+        if (primes == null) {
+            long startTime = System.nanoTime();
+            primes = cache.getPrimes(max);
+            computeNanos = System.nanoTime() - startTime;
+        }
+        return primes;
+    }
+
+    /**
+     * Function returns the primes up to the value asked for by one record of the batch.
+     *
+     * @param limit         The value asked for, no larger than the max of the batch
+     * @return              The primes and the amortised time taken
+     */
+    public Result primes(int limit) {
+        if (limit > max)
+            throw new IllegalArgumentException("Error. Value " + limit + " is above the max of the batch " + max);
+        IntSlice all = shared();
+        long startTime = System.nanoTime();
+        IntSlice slice = limit == max ? all : all.prefix(all.countAtMost(limit));
+        long sliceNanos = System.nanoTime() - startTime;
+        long share;
+        synchronized (this) {
+            share = computeNanos / records;
+        }
+        return new Result(slice, share, sliceNanos);
+    }
+
+    /**
+     * The primes of one record along with the amortised time taken to find them.
+     */
+    public static final class Result {
+
+        private final IntSlice primes;
+        private final long computeNanos;
+        private final long cacheNanos;
+
+        Result(IntSlice primes, long computeNanos, long cacheNanos) {
+            this.primes = primes;
+            this.computeNanos = computeNanos;
+            this.cacheNanos = cacheNanos;
+        }
+
+        /**
+         * Function returns the primes of the record.
+         *
+         * @return          The prime numbers
+         */
+        public IntSlice getPrimes() {
+            return primes;
+        }
+
+        /**
+         * Function returns the amortised time taken to find the primes.
+         *
+         * @return          The time taken in nanoseconds
+         */
+        public long getNanos() {
+            return computeNanos + cacheNanos;
+        }
+
+        /**
+         * Function returns the share of the record in the time taken to find the primes of the batch.
+         *
+         * @return          The compute time in nanoseconds
+         */
+        public long getComputeNanos() {
+            return computeNanos;
+        }
+
+        /**
+         * Function returns the time taken to look up the primes of the record among those of the batch.
+         *
+         * @return          The cache time in nanoseconds
+         */
+        public long getCacheNanos() {
+            return cacheNanos;
+        }
+    }
+}
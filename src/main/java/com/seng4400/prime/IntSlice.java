@@ -0,0 +1,187 @@
+package com.seng4400.prime;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Read only view over the first values of a primitive int array. Prime lists are passed around as slices so that the
+ * engines, the cache and the JSON writer never box a value, and so that the cache can hand out a prefix of its shared
+ * table without copying it.
+ *
+ * A slice is backed either by an int array on the heap or by an int buffer, which may be a direct buffer off the heap.
+ * Readers only use the methods below, so they work the same over either.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public final class IntSlice {
+
+    private static final IntSlice EMPTY = new IntSlice(new int[0], 0);
+
+    private final int[] values;
+    private final IntBuffer buffer;
+    private final int length;
+
+    /**
+     * Constructor creating a slice over the first values of the array. The array is shared, not copied, so it must not
+     * be changed while the slice is in use.
+     *
+     * @param values        The array holding the values
+     * @param length        The number of values in the slice
+     */
+    public IntSlice(int[] values, int length) {
+        if (length < 0 || length > values.length)
+            throw new IndexOutOfBoundsException("Length: " + length + ", Capacity: " + values.length);
+        this.values = values;
+        this.buffer = null;
+        this.length = length;
+    }
+
+    /**
+     * Constructor creating a slice over the first values of the buffer, counted from index zero whatever the position
+     * of the buffer. The buffer is shared, not copied, so those values must not be changed while the slice is in use,
+     * and a direct buffer must not be released.
+     *
+     * @param buffer        The buffer holding the values
+     * @param length        The number of values in the slice
+     */
+    public IntSlice(IntBuffer buffer, int length) {
+        if (length < 0 || length > buffer.capacity())
+            throw new IndexOutOfBoundsException("Length: " + length + ", Capacity: " + buffer.capacity());
+        this.values = null;
+        this.buffer = buffer;
+        this.length = length;
+    }
+
+    /**
+     * Function returns a slice with no values.
+     *
+     * @return              The empty slice
+     */
+    public static IntSlice empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Function returns the value at the given index.
+     *
+     * @param index         The index of the value
+     * @return              The value
+     */
+    public int get(int index) {
+        if (index >= length)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + length);
+        return values != null ? values[index] : buffer.get(index);
+    }
+
+    /**
+     * Function returns the number of values in the slice.
+     *
+     * @return              The length of the slice
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Function returns a slice over the first values of this slice, sharing the same array.
+     *
+     * @param length        The number of values to keep
+     * @return              The shorter slice
+     */
+    public IntSlice prefix(int length) {
+        if (length == this.length)
+            return this;
+        return values != null ? new IntSlice(values, length) : new IntSlice(buffer, length);
+    }
+
+    /**
+     * Function returns the number of values less than or equal to the given value, assuming the slice is sorted.
+     *
+     * @param value         The value to search for
+     * @return              The number of values at or below the value
+     */
+    public int countAtMost(int value) {
+        if (values != null) {
+            int index = Arrays.binarySearch(values, 0, length, value);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+        int low = 0;
+        int high = length;
+        while (low < high) {                                                    // First index above the value
+            int middle = (low + high) >>> 1;
+            if (buffer.get(middle) <= value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Method copies the values of the slice into the given array.
+     *
+     * @param target        The array to copy into
+     * @param offset        The index in the target of the first value
+     */
+    public void copyTo(int[] target, int offset) {
+        if (values != null) {
+            System.arraycopy(values, 0, target, offset, length);
+            return;
+        }
+        IntBuffer source = buffer.duplicate();
+        source.clear();
+        source.get(target, offset, length);
+    }
+
+    /**
+     * Method copies the values of the slice into the given buffer at its position, and moves the position past them.
+     *
+     * @param target        The buffer to copy into
+     */
+    public void copyTo(IntBuffer target) {
+        if (values != null) {
+            target.put(values, 0, length);
+            return;
+        }
+        IntBuffer source = buffer.duplicate();
+        source.clear().limit(length);
+        target.put(source);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (!(other instanceof IntSlice))
+            return false;
+        IntSlice slice = (IntSlice) other;
+        if (length != slice.length)
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (get(i) != slice.get(i))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < length; i++)
+            hash = 31 * hash + get(i);
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < length; i++) {
+            if (i > 0)
+                builder.append(", ");
+            builder.append(get(i));
+        }
+        return builder.append(']').toString();
+    }
+}
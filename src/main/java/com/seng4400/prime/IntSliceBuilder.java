@@ -0,0 +1,71 @@
+package com.seng4400.prime;
+
+import java.util.Arrays;
+
+/**
+ * Growable buffer of primitive ints used by the engines to collect primes without boxing them. The finished buffer is
+ * handed out as a slice over the same array, so no copy is made when the initial capacity was large enough.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+final class IntSliceBuilder {
+
+    private int[] values;
+    private int length;
+
+    /**
+     * Constructor creating a buffer with the given capacity.
+     *
+     * @param capacity      The number of values the buffer holds before it grows
+     */
+    IntSliceBuilder(int capacity) {
+        this.values = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Method adds a value to the end of the buffer.
+     *
+     * @param value         The value to add
+     */
+    void add(int value) {
+        if (length == values.length)
+            grow(length + 1);
+        values[length++] = value;
+    }
+
+    /**
+     * Method adds every value of a slice to the end of the buffer.
+     *
+     * @param slice         The values to add
+     */
+    void addAll(IntSlice slice) {
+        if (length + slice.length() > values.length)
+            grow(length + slice.length());
+        slice.copyTo(values, length);
+        length += slice.length();
+    }
+
+    /**
+     * Method empties the buffer so that it can be filled again. A slice built earlier shares the array, so it must be
+     * out of use before the buffer is refilled.
+     */
+    void clear() {
+        length = 0;
+    }
+
+    /**
+     * Function returns a slice over the values added so far.
+     *
+     * @return              The slice of values
+     */
+    IntSlice build() {
+        return length == 0 ? IntSlice.empty() : new IntSlice(values, length);
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(minCapacity, values.length * 3L / 2));
+        values = Arrays.copyOf(values, capacity);
+    }
+}
@@ -0,0 +1,226 @@
+package com.seng4400.prime;
+
+import java.io.Closeable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Table of primes held in a direct buffer outside of the heap, so that a table of millions of primes is never copied
+ * or scanned by the garbage collector and cannot lengthen a pause of the consumer thread. The buffer is allocated once
+ * at a fixed capacity and the table only grows by appending, so slices handed out over the start of the table stay
+ * valid while it grows and no table is ever copied to a larger one.
+ *
+ * The table grows with a segmented sieve of just the new range, so the working memory of each growth is one block of
+ * bits and one block of primes, both reused, however large the table is. When the capacity runs out the table stops
+ * at the last prime that fits.
+ *
+ * The memory is given back by {@link #close()} rather than whenever the collector next finds the buffer unreachable.
+ * After that every slice over the table is invalid, so the table must only be closed once no answer using it is left.
+ * Growth is not thread safe, the caller appends under a lock of its own and publishes the new length safely.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public final class OffHeapPrimeTable implements Closeable {
+
+    /**
+     * The largest number of primes a table can hold, being the number of ints in the largest direct buffer.
+     */
+    public static final int MAX_CAPACITY = Integer.MAX_VALUE / 4;
+
+    private final int segmentBits;
+    private ByteBuffer memory;
+    private IntBuffer primes;
+    private int length;
+    private int limit = 1;
+
+    /**
+     * Constructor allocating a table able to hold the given number of primes.
+     *
+     * @param capacity      The largest number of primes the table holds
+     */
+    public OffHeapPrimeTable(int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY)
+            throw new IllegalArgumentException("Error. Off heap table capacity must be between 1 and " + MAX_CAPACITY);
+        this.memory = ByteBuffer.allocateDirect(4 * capacity).order(ByteOrder.nativeOrder());
+        this.primes = memory.asIntBuffer();
+        this.segmentBits = new SegmentedSieveEngine().getSegmentBits();
+    }
+
+    /**
+     * Function returns the number of primes needed to hold every prime up to the max, which is the capacity to give a
+     * table that should reach the max.
+     *
+     * @param max           The value the table should reach
+     * @return              The number of primes, an upper bound, capped at the max capacity
+     */
+    public static int capacityFor(int max) {
+        return Math.min(MAX_CAPACITY, SieveEngine.estimateCount(max));
+    }
+
+    /**
+     * Function returns the number of primes the table can hold.
+     *
+     * @return              The capacity of the table
+     */
+    public int getCapacity() {
+        return primes.capacity();
+    }
+
+    /**
+     * Function returns the number of bytes of memory held by the table off the heap.
+     *
+     * @return              The size of the buffer in bytes, zero once released
+     */
+    public long getReservedBytes() {
+        return memory == null ? 0 : memory.capacity();
+    }
+
+    /**
+     * Function returns the largest max the table holds every prime up to.
+     *
+     * @return              The limit of the table
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Function returns a slice over every prime in the table. The slice stays valid as the table grows, up until the
+     * table is closed.
+     *
+     * @return              The primes of the table
+     */
+    public IntSlice slice() {
+        ensureOpen();
+        return length == 0 ? IntSlice.empty() : new IntSlice(primes, length);
+    }
+
+    /**
+     * Function grows the table to hold every prime up to the max, or as many as fit.
+     *
+     * @param max           The value to grow the table to
+     * @return              The limit of the table afterwards, less than the max if the capacity ran out
+     */
+    public int extend(int max) {
+        ensureOpen();
+        if (max <= limit || length == primes.capacity())
+            return limit;
+        if (length == 0) {
+            primes.put(0, 2);
+            length = 1;
+            limit = 2;
+        }
+        int[] basePrimes = SegmentedSieveEngine.basePrimes(max);
+        long[] segment = new long[segmentBits >>> 6];
+        IntSliceBuilder found = new IntSliceBuilder(segmentBits / 4);          // Enough for the densest block
+        long end = SegmentedSieveEngine.oddIndex(max) + 1;
+        for (long low = SegmentedSieveEngine.oddIndex(limit) + 1; low < end; low += segmentBits) {
+            long high = Math.min(low + segmentBits, end);
+            found.clear();
+            SegmentedSieveEngine.sieveSegment(basePrimes, low, high, segment, found);
+            IntSlice block = found.build();
+            int room = primes.capacity() - length;
+            if (block.length() > room) {                                        // Stop at the last prime that fits
+                if (room > 0)
+                    append(block.prefix(room));
+                limit = primes.get(length - 1);
+                return limit;
+            }
+            append(block);
+            limit = (int) Math.min(Integer.MAX_VALUE, 2 * high);
+        }
+        limit = max;
+        return limit;
+    }
+
+    /**
+     * Method grows the table from primes found elsewhere, such as those read from a file. Only the primes past those
+     * already held are copied, as many as fit.
+     *
+     * @param source        Every prime up to the limit, in ascending order
+     * @param sourceLimit   The max the source holds every prime up to
+     * @return              The limit of the table afterwards
+     */
+    public int extend(IntSlice source, int sourceLimit) {
+        ensureOpen();
+        if (sourceLimit <= limit || source.length() < length)
+            return limit;
+        int count = Math.min(source.length(), primes.capacity());
+        if (count > length) {
+            IntBuffer target = primes.duplicate();
+            target.position(length);
+            for (int i = length; i < count; i++)
+                target.put(source.get(i));
+            length = count;
+        }
+        limit = count == source.length() ? sourceLimit : primes.get(count - 1);
+        return limit;
+    }
+
+    /**
+     * Method appends a block of primes, which must fit.
+     *
+     * @param block         The primes to append
+     */
+    private void append(IntSlice block) {
+        IntBuffer target = primes.duplicate();
+        target.position(length);
+        block.copyTo(target);
+        length += block.length();
+    }
+
+    /**
+     * Method checks that the table has not been released.
+     */
+    private void ensureOpen() {
+        if (memory == null)
+            throw new IllegalStateException("Error. Off heap prime table has been released.");
+    }
+
+    /**
+     * Method gives the memory of the table back straight away. Every slice over the table must be out of use.
+     */
+    @Override
+    public void close() {
+        if (memory == null)
+            return;
+        ByteBuffer released = memory;
+        memory = null;
+        primes = null;
+        length = 0;
+        free(released);
+    }
+
+    /**
+     * Method frees the memory of a direct buffer, or unmaps a mapped one, without waiting for the collector. The
+     * cleaner is reached through Unsafe on Java 9 and later and through the buffer itself on Java 8. If neither can be
+     * reached the buffer is left for the collector to free.
+     *
+     * @param buffer        The direct or mapped buffer to free
+     */
+    static void free(ByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        } catch (NoSuchMethodException e) {                                     // Java 8
+            try {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            } catch (ReflectiveOperationException | RuntimeException inner) {
+                System.err.println("Failed to release off heap memory, leaving it to the collector: " + inner);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            System.err.println("Failed to release off heap memory, leaving it to the collector: " + e);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.seng4400.prime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Engine which spreads the blocks of a segmented sieve across the threads of a fork/join pool so that a single large
+ * request can use every core. The range is cut into a few chunks per thread, each chunk is sieved block by block into
+ * its own buffer and the buffers are joined back together in order. Requests below the threshold are answered by the
+ * sequential segmented engine since splitting them would cost more than it saves.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class ParallelSieveEngine implements PrimeEngine {
+
+    /**
+     * The name used to select this engine.
+     */
+    public static final String NAME = "parallel";
+
+    /**
+     * The default max below which the sequential path is used.
+     */
+    public static final int DEFAULT_THRESHOLD = 4_000_000;
+
+    /**
+     * The number of chunks created for each thread in the pool, so that threads finishing early can take more work.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+    private final int threshold;
+    private final SegmentedSieveEngine sequential;
+
+    /**
+     * Constructor creating an engine using the common pool, the default threshold and the default block size.
+     */
+    public ParallelSieveEngine() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD, SegmentedSieveEngine.DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Constructor creating an engine with the given pool, threshold and block size.
+     *
+     * @param pool          The pool the blocks are sieved on
+     * @param threshold     The max below which the sequential path is used
+     * @param segmentBytes  The size of a block in bytes
+     */
+    public ParallelSieveEngine(ForkJoinPool pool, int threshold, int segmentBytes) {
+        this(pool, false, threshold, segmentBytes);
+    }
+
+    /**
+     * Constructor creating an engine with a dedicated pool of the given size, which is shut down once the engine is
+     * closed.
+     *
+     * @param threads       The number of threads in the pool
+     * @param threshold     The max below which the sequential path is used
+     * @param segmentBytes  The size of a block in bytes
+     */
+    public ParallelSieveEngine(int threads, int threshold, int segmentBytes) {
+        this(new ForkJoinPool(threads), true, threshold, segmentBytes);
+    }
+
+    private ParallelSieveEngine(ForkJoinPool pool, boolean ownsPool, int threshold, int segmentBytes) {
+        if (pool == null)
+            throw new IllegalArgumentException("Error. A pool must be given.");
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+        this.threshold = threshold;
+        this.sequential = new SegmentedSieveEngine(segmentBytes);
+    }
+
+    @Override
+    public IntSlice getPrimes(int max) {
+        if (max < 2)
+            return IntSlice.empty();
+        if (max < threshold || pool.getParallelism() < 2)
+            return sequential.getPrimes(max);
+        int[] basePrimes = SegmentedSieveEngine.basePrimes(max);
+        int segmentBits = sequential.getSegmentBits();
+        long end = SegmentedSieveEngine.oddIndex(max) + 1;
+        long chunks = (long) pool.getParallelism() * CHUNKS_PER_THREAD;
+        long segmentsPerChunk = Math.max(1, (end + segmentBits * chunks - 1) / (segmentBits * chunks));
+        long chunkBits = segmentsPerChunk * segmentBits;
+
+        List<ChunkTask> tasks = new ArrayList<>();
+        for (long low = 0; low < end; low += chunkBits)
+            tasks.add(new ChunkTask(basePrimes, low, Math.min(low + chunkBits, end), segmentBits));
+        pool.invoke(new RecursiveTask<Void>() {
+            @Override
+            protected Void compute() {
+                ForkJoinTask.invokeAll(tasks);
+                return null;
+            }
+        });
+
+        IntSliceBuilder primes = new IntSliceBuilder(SieveEngine.estimateCount(max));
+        primes.add(2);
+        for (ChunkTask task : tasks)                                            // Merge the chunks in order
+            primes.addAll(task.join());
+        return primes.build();
+    }
+
+    /**
+     * Method shuts down the pool if the engine created it, a pool that was given is left to its owner.
+     */
+    @Override
+    public void close() {
+        if (ownsPool)
+            pool.shutdown();
+    }
+
+    /**
+     * Task sieving one chunk of the range, block by block, into a buffer of its own.
+     */
+    @SuppressWarnings("serial")                                                 // Tasks are never serialised
+    private static final class ChunkTask extends RecursiveTask<IntSlice> {
+
+        private final int[] basePrimes;
+        private final long low;
+        private final long high;
+        private final int segmentBits;
+
+        ChunkTask(int[] basePrimes, long low, long high, int segmentBits) {
+            this.basePrimes = basePrimes;
+            this.low = low;
+            this.high = high;
+            this.segmentBits = segmentBits;
+        }
+
+        @Override
+        protected IntSlice compute() {
+            IntSliceBuilder primes = new IntSliceBuilder(SieveEngine.estimateCount((int) Math.min(Integer.MAX_VALUE,
+                    2 * (high - low))));
+            long[] segment = new long[segmentBits >>> 6];
+            for (long start = low; start < high; start += segmentBits)
+                SegmentedSieveEngine.sieveSegment(basePrimes, start, Math.min(start + segmentBits, high), segment,
+                        primes);
+            return primes.build();
+        }
+    }
+}
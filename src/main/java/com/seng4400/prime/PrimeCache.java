@@ -0,0 +1,220 @@
+package com.seng4400.prime;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process wide table of prime numbers shared by every record. Since the primes up to n are a prefix of the primes up to
+ * any larger value, the table only has to be extended when a record asks for a larger max than has been computed so
+ * far. Every other request is answered by a binary search for the cutoff and a slice over the shared table, so no
+ * primes are copied or boxed.
+ *
+ * The table is replaced as a whole when it grows, so readers never lock and always see a complete table. Growth at
+ * least doubles the limit, capped at the ceiling, so that a slowly rising max does not sieve the range over and over.
+ *
+ * The table can be kept in a {@link PrimeFile}, in which case the cache starts from the table in the file and writes
+ * the table to the file each time it grows. Before sieving, the file is read in case another process on the host has
+ * already grown it far enough. A file that cannot be read or written is reported and the cache carries on in memory.
+ *
+ * The table can also be held in an {@link OffHeapPrimeTable}, so that it is kept out of the heap. The table then grows
+ * in place up to the capacity of the off heap table, and a request above the largest max that fits is found by the
+ * engine without being cached. The off heap memory is released when the cache is closed.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class PrimeCache implements Closeable {
+
+    private final PrimeEngine engine;
+    private final int ceiling;
+    private final PrimeFile file;
+    private final OffHeapPrimeTable offHeap;
+    private static final Table CLOSED = new Table(IntSlice.empty(), 1);
+
+    private volatile Table table = new Table(IntSlice.empty(), 1);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructor creating an empty cache filled by the given engine.
+     *
+     * @param engine        The engine used to extend the table
+     * @param ceiling       The largest max the table will grow to
+     */
+    public PrimeCache(PrimeEngine engine, int ceiling) {
+        this(engine, ceiling, null);
+    }
+
+    /**
+     * Constructor creating a cache kept in the given file, starting from the table the file holds.
+     *
+     * @param engine        The engine used to extend the table
+     * @param ceiling       The largest max the table will grow to
+     * @param file          The file the table is kept in, or null to keep it in memory only
+     */
+    public PrimeCache(PrimeEngine engine, int ceiling, PrimeFile file) {
+        this(engine, ceiling, file, null);
+    }
+
+    /**
+     * Constructor creating a cache kept in the given file and held in the given off heap table. The cache takes
+     * ownership of the off heap table and releases it when closed.
+     *
+     * @param engine        The engine used for requests above the capacity of the off heap table
+     * @param ceiling       The largest max the table will grow to
+     * @param file          The file the table is kept in, or null to keep it in memory only
+     * @param offHeap       The table the primes are held in, or null to hold them on the heap
+     */
+    public PrimeCache(PrimeEngine engine, int ceiling, PrimeFile file, OffHeapPrimeTable offHeap) {
+        if (engine == null)
+            throw new IllegalArgumentException("Error. An engine must be given.");
+        this.engine = engine;
+        this.ceiling = ceiling;
+        this.file = file;
+        this.offHeap = offHeap;
+        Table stored = readFile(0);
+        if (stored != null)
+            table = stored;
+    }
+
+    /**
+     * Method retrieves the prime numbers from the value two to the max specified in the parameter. The slice shares
+     * the array of the table.
+     *
+     * @param max           The value to specify the max range
+     * @return              The prime numbers
+     */
+    public IntSlice getPrimes(int max) {
+        Table current = table;
+        if (max > current.limit) {
+            misses.increment();
+            current = extend(max);
+            if (max > current.limit)                                            // Beyond the off heap capacity
+                return engine.getPrimes(max);
+        } else {
+            hits.increment();
+        }
+        if (max >= current.limit)
+            return current.primes;
+        return current.primes.prefix(current.primes.countAtMost(max));
+    }
+
+    /**
+     * Function returns the number of requests answered from the table as it stood.
+     *
+     * @return              The count of cache hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Function returns the number of requests that had to grow the table, or wait for another thread to grow it.
+     *
+     * @return              The count of cache misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Function returns the largest max that has been computed so far.
+     *
+     * @return              The limit of the table
+     */
+    public int getLimit() {
+        return table.limit;
+    }
+
+    /**
+     * Function grows the table so that it covers at least the given max. Only one thread sieves at a time, a thread
+     * that waited while another grew the table far enough uses that table instead.
+     *
+     * @param max           The value the table must cover
+     * @return              The table covering the max
+     */
+    private synchronized Table extend(int max) {
+        Table current = table;
+        if (max <= current.limit)
+            return current;
+        if (table == CLOSED)
+            throw new IllegalStateException("Error. Prime cache has been closed.");
+        Table stored = readFile(max);                                           // Another process may have grown it
+        if (stored != null) {
+            table = stored;
+            if (stored.limit >= max)
+                return stored;
+            current = stored;
+        }
+        int limit = (int) Math.min(Math.max(ceiling, max), Math.max(max, 2L * current.limit));
+        if (offHeap != null) {
+            if (offHeap.extend(limit) == current.limit)
+                return current;                                                 // The capacity has run out
+            current = new Table(offHeap.slice(), offHeap.getLimit());
+            limit = current.limit;
+        } else {
+            current = new Table(engine.getPrimes(limit), limit);
+        }
+        table = current;
+        if (file != null) {
+            try {
+                file.append(current.primes, limit);
+            } catch (IOException e) {
+                System.err.println("Failed to write the prime table to " + file.getPath() + ": " + e.getMessage());
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Function reads the table from the file, if the cache is kept in one and the table covers the max. The header is
+     * checked first so that a table too small to use is not read.
+     *
+     * @param max           The value the table must cover
+     * @return              The table in the file, or null if there is no file or no valid table covering the max
+     */
+    private Table readFile(int max) {
+        if (file == null)
+            return null;
+        try {
+            int limit = file.readLimit();
+            if (limit < Math.max(max, 2))
+                return null;
+            PrimeFile.Contents contents = file.read(offHeap);
+            if (contents == null || contents.getLimit() <= table.limit)
+                return null;
+            return new Table(contents.getPrimes(), contents.getLimit());
+        } catch (IOException e) {
+            System.err.println("Failed to read the prime table from " + file.getPath() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Method releases the off heap table, if the cache has one, and empties the cache. Any slice handed out before must
+     * be out of use, since it may be over the released memory. A request after the cache is closed throws an illegal
+     * state exception.
+     */
+    @Override
+    public synchronized void close() {
+        table = CLOSED;
+        if (offHeap != null)
+            offHeap.close();
+    }
+
+    /**
+     * Immutable snapshot of the table, holding the primes up to the limit.
+     */
+    private static final class Table {
+
+        final IntSlice primes;
+        final int limit;
+
+        Table(IntSlice primes, int limit) {
+            this.primes = primes;
+            this.limit = limit;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.seng4400.prime;
+
+/**
+ * A prime engine is responsible for producing every prime number from two up to and including a given maximum. The
+ * Client selects one engine at start up and uses it for every record received, which allows the engines to be swapped
+ * or cross-checked against one another without changing the consumer.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public interface PrimeEngine extends AutoCloseable {
+
+    /**
+     * Method retrieves the prime numbers from the value two to the max specified in the parameter. A max below two
+     * results in an empty slice.
+     *
+     * @param max           The value to specify the max range
+     * @return              The prime numbers in ascending order
+     */
+    IntSlice getPrimes(int max);
+
+    /**
+     * Method releases any threads held by the engine. Engines holding nothing have nothing to release.
+     */
+    @Override
+    default void close() {
+    }
+}
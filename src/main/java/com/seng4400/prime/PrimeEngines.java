@@ -0,0 +1,68 @@
+package com.seng4400.prime;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Factory used to select a prime engine by name. The parallel segmented sieve is the default engine since its memory
+ * does not grow with the max and large requests use every core, the trial division engine is kept as a reference
+ * implementation so that results can be cross-checked.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public final class PrimeEngines {
+
+    private PrimeEngines() {
+    }
+
+    /**
+     * Function returns the engine used when no other is requested, the parallel engine on the common pool with the
+     * default threshold. Settings of the engine are read by the caller, which passes them to
+     * {@link #forName(String, int, int)}.
+     *
+     * @return              The default prime engine
+     */
+    public static PrimeEngine defaultEngine() {
+        return parallel(0, ParallelSieveEngine.DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Function creates the parallel engine.
+     *
+     * @param threads       The size of a dedicated pool, shut down when the engine is closed, where zero uses the
+     *                      common pool
+     * @param threshold     The max below which the sequential path is used
+     * @return              The parallel prime engine
+     */
+    private static PrimeEngine parallel(int threads, int threshold) {
+        int segmentBytes = SegmentedSieveEngine.DEFAULT_SEGMENT_BYTES;
+        if (threads > 0)
+            return new ParallelSieveEngine(threads, threshold, segmentBytes);
+        return new ParallelSieveEngine(ForkJoinPool.commonPool(), threshold, segmentBytes);
+    }
+
+    /**
+     * Function creates the engine with the given name, giving the parallel engine the pool size and threshold. If the
+     * name is not known, an illegal argument exception is thrown.
+     *
+     * @param name          The name of the engine, such as "parallel", "segmented", "sieve" or "trial-division"
+     * @param threads       The size of a dedicated pool for the parallel engine, where zero uses the common pool
+     * @param threshold     The max below which the parallel engine uses the sequential path
+     * @return              The prime engine
+     */
+    public static PrimeEngine forName(String name, int threads, int threshold) {
+        switch (name) {
+            case ParallelSieveEngine.NAME:
+                return parallel(threads, threshold);
+            case SegmentedSieveEngine.NAME:
+                return new SegmentedSieveEngine();
+            case SieveEngine.NAME:
+                return new SieveEngine();
+            case TrialDivisionEngine.NAME:
+                return new TrialDivisionEngine();
+            default:
+                throw new IllegalArgumentException("Error. Unknown prime engine: " + name);
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.seng4400.prime;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+/**
+ * Prime table kept in a file so that it outlives the process. A restarted client maps the file read only and starts
+ * with every prime an earlier run found, rather than sieving them again, and client processes on the same host share
+ * the file so that a range sieved by one is read by the others.
+ *
+ * The file holds a header of 32 bytes followed by the primes as packed little endian ints in ascending order:
+ *
+ *     0   magic       "S4PT"
+ *     4   version     1
+ *     8   limit       the max the primes were found up to
+ *     12  count       the number of primes
+ *     16  crc         CRC-32 of the primes
+ *     20  header crc  CRC-32 of the first 20 bytes
+ *     24  reserved
+ *
+ * A table is only ever grown, by appending the primes past the current count, forcing them to disk, and then
+ * rewriting the header. A reader therefore sees either the old table or the new one, never a mix, and a file left
+ * torn by a crash fails its checksum and is rebuilt on the next append. Readers hold a shared lock on the file and
+ * writers an exclusive one, so only one process appends at a time. A file lock is held for the whole JVM and cannot be
+ * taken twice, so every instance for the same path shares one monitor, and any number of them may be used at once.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class PrimeFile {
+
+    /**
+     * The version of the file layout written by this class.
+     */
+    public static final int VERSION = 1;
+
+    static final int MAGIC = 0x54503453;                                        // "S4PT" read as a little endian int
+    static final int HEADER_BYTES = 32;
+    private static final int HEADER_CHECKED_BYTES = 20;
+    private static final int CHUNK_INTS = 16 * 1024;
+
+    private static final ConcurrentMap<Path, Object> LOCKS = new ConcurrentHashMap<>();
+
+    private final Path path;
+    private final Object lock;
+
+    /**
+     * Constructor creating a table kept in the given file. The file is not opened until it is read or appended to.
+     *
+     * @param path          The path of the file
+     */
+    public PrimeFile(Path path) {
+        this.path = path;
+        this.lock = LOCKS.computeIfAbsent(path.toAbsolutePath().normalize(), key -> new Object());
+    }
+
+    /**
+     * Function returns the path of the file.
+     *
+     * @return              The path of the file
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Function reads the table from the file. The file is mapped read only and its checksums are checked before the
+     * primes are copied out, after which the file is unmapped. If the file does not exist, is of another version or
+     * fails a checksum, null is returned so that the caller starts from nothing.
+     *
+     * @return              The primes and the max they were found up to, or null if there is no valid table
+     * @throws IOException  Throws if the file exists but cannot be read
+     */
+    public Contents read() throws IOException {
+        return read(null);
+    }
+
+    /**
+     * Function reads the table from the file into an off heap table, copying straight from the mapped file so that
+     * the primes never pass through the heap. Only the primes past those the off heap table holds are copied, as many
+     * as fit. With no off heap table the primes are copied onto the heap as by {@link #read()}.
+     *
+     * @param target        The off heap table to grow, or null to copy onto the heap
+     * @return              The primes and the max they were found up to, or null if there is no valid table
+     * @throws IOException  Throws if the file exists but cannot be read
+     */
+    public Contents read(OffHeapPrimeTable target) throws IOException {
+        synchronized (lock) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                channel.lock(0, Long.MAX_VALUE, true);                          // Released when the channel closes
+                long size = channel.size();
+                if (size < HEADER_BYTES)
+                    return null;
+                MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                try {
+                    map.order(ByteOrder.LITTLE_ENDIAN);
+                    Header header = Header.read(map);
+                    ByteBuffer data = header == null ? null : data(map, header);
+                    if (data == null)
+                        return null;
+                    IntBuffer mapped = data.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+                    if (target != null) {
+                        int limit = target.extend(new IntSlice(mapped, header.count), header.limit);
+                        return new Contents(target.slice(), limit);
+                    }
+                    int[] primes = new int[header.count];
+                    mapped.get(primes);
+                    return new Contents(new IntSlice(primes, primes.length), header.limit);
+                } finally {
+                    OffHeapPrimeTable.free(map);                                // The primes have been copied out
+                }
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Function reads only the header of the file, so that the caller can tell whether the table is worth reading.
+     *
+     * @return              The max the table in the file was found up to, or zero if there is no valid table
+     * @throws IOException  Throws if the file exists but cannot be read
+     */
+    public int readLimit() throws IOException {
+        synchronized (lock) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                channel.lock(0, Long.MAX_VALUE, true);                          // Released when the channel closes
+                ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                if (channel.read(buffer, 0) < HEADER_BYTES)
+                    return 0;
+                Header header = Header.read(buffer);
+                return header == null || HEADER_BYTES + 4L * header.count > channel.size() ? 0 : header.limit;
+            } catch (NoSuchFileException e) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Method grows the table in the file to the given primes. Only the primes past those already in the file are
+     * written. If another process has already grown the file as far, nothing is written, and if the file holds no
+     * valid table it is rewritten from the start.
+     *
+     * @param primes        Every prime up to the limit, in ascending order
+     * @param limit         The max the primes were found up to
+     * @throws IOException  Throws if the file cannot be written
+     */
+    public void append(IntSlice primes, int limit) throws IOException {
+        synchronized (lock) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                channel.lock();                                                 // Released when the channel closes
+                ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                int start = 0;
+                if (channel.size() >= HEADER_BYTES && channel.read(buffer, 0) == HEADER_BYTES) {
+                    buffer.flip();
+                    Header header = Header.read(buffer);
+                    if (header != null && valid(channel, header)) {             // Keep only primes that pass the crc
+                        if (header.limit >= limit)
+                            return;                                             // Already grown as far
+                        if (header.count <= primes.length())
+                            start = header.count;
+                    }
+                }
+                if (start == 0)
+                    channel.truncate(HEADER_BYTES);
+                ByteBuffer chunk = ByteBuffer.allocate(4 * CHUNK_INTS).order(ByteOrder.LITTLE_ENDIAN);
+                CRC32 crc = new CRC32();
+                for (int from = 0; from < primes.length(); from += CHUNK_INTS) {  // Checksum every prime, write the new
+                    int to = Math.min(from + CHUNK_INTS, primes.length());
+                    chunk.clear();
+                    for (int i = from; i < to; i++)
+                        chunk.putInt(primes.get(i));
+                    chunk.flip();
+                    crc.update(chunk.array(), 0, chunk.limit());
+                    if (to <= start)
+                        continue;
+                    int skip = Math.max(0, start - from);
+                    chunk.position(4 * skip);
+                    long position = HEADER_BYTES + 4L * (from + skip);
+                    while (chunk.hasRemaining())
+                        position += channel.write(chunk, position);
+                }
+                channel.force(false);                                           // Primes reach disk before the header
+                buffer.clear();
+                new Header(limit, primes.length(), (int) crc.getValue()).write(buffer);
+                buffer.flip();
+                while (buffer.hasRemaining())
+                    channel.write(buffer, buffer.position());
+                channel.force(false);
+            }
+        }
+    }
+
+    /**
+     * Function returns whether the primes in the file are all there and pass their checksum. The file is mapped for
+     * the check and unmapped again straight away, since a file left mapped cannot be truncated on some platforms.
+     *
+     * @param channel       The open file
+     * @param header        The header of the file
+     * @return              True if the primes in the file are valid
+     * @throws IOException  Throws if the file cannot be mapped
+     */
+    private static boolean valid(FileChannel channel, Header header) throws IOException {
+        if (HEADER_BYTES + 4L * header.count > channel.size())
+            return false;
+        MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        try {
+            return data(map, header) != null;
+        } finally {
+            OffHeapPrimeTable.free(map);
+        }
+    }
+
+    /**
+     * Function returns the primes of the mapped file, if they are all there and pass their checksum.
+     *
+     * @param map           The whole file, mapped
+     * @param header        The header of the file
+     * @return              The bytes of the primes, or null if they are cut short or fail the checksum
+     */
+    private static ByteBuffer data(ByteBuffer map, Header header) {
+        if (HEADER_BYTES + 4L * header.count > map.capacity())
+            return null;
+        ByteBuffer data = map.duplicate();
+        data.position(HEADER_BYTES).limit(HEADER_BYTES + 4 * header.count);
+        data = data.slice();
+        if (crc(data.duplicate()) != header.crc)
+            return null;
+        return data;
+    }
+
+    /**
+     * Function returns the CRC-32 of the bytes remaining in the buffer.
+     *
+     * @param data          The bytes to check
+     * @return              The checksum
+     */
+    private static int crc(ByteBuffer data) {
+        CRC32 crc = new CRC32();
+        byte[] chunk = new byte[4 * CHUNK_INTS];
+        while (data.hasRemaining()) {
+            int length = Math.min(chunk.length, data.remaining());
+            data.get(chunk, 0, length);
+            crc.update(chunk, 0, length);
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * The table read from the file.
+     */
+    public static final class Contents {
+
+        private final IntSlice primes;
+        private final int limit;
+
+        Contents(IntSlice primes, int limit) {
+            this.primes = primes;
+            this.limit = limit;
+        }
+
+        /**
+         * Function returns every prime up to the limit.
+         *
+         * @return              The primes in ascending order
+         */
+        public IntSlice getPrimes() {
+            return primes;
+        }
+
+        /**
+         * Function returns the max the primes were found up to.
+         *
+         * @return              The limit of the table
+         */
+        public int getLimit() {
+            return limit;
+        }
+    }
+
+    /**
+     * The header of the file.
+     */
+    private static final class Header {
+
+        final int limit;
+        final int count;
+        final int crc;
+
+        Header(int limit, int count, int crc) {
+            this.limit = limit;
+            this.count = count;
+            this.crc = crc;
+        }
+
+        /**
+         * Function reads the header at the start of the buffer, which must be little endian.
+         *
+         * @param buffer        The buffer holding the header at index zero
+         * @return              The header, or null if it is not a valid header of this version
+         */
+        static Header read(ByteBuffer buffer) {
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+                return null;
+            ByteBuffer checked = buffer.duplicate();
+            checked.position(0).limit(HEADER_CHECKED_BYTES);
+            if (crc(checked.slice()) != buffer.getInt(HEADER_CHECKED_BYTES))
+                return null;
+            int count = buffer.getInt(12);
+            if (count < 0)
+                return null;
+            return new Header(buffer.getInt(8), count, buffer.getInt(16));
+        }
+
+        /**
+         * Method writes the header at the start of the buffer, which must be little endian and at least the size of
+         * the header.
+         *
+         * @param buffer        The buffer the header is written to
+         */
+        void write(ByteBuffer buffer) {
+            buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, limit).putInt(12, count).putInt(16, crc);
+            ByteBuffer checked = buffer.duplicate();
+            checked.position(0).limit(HEADER_CHECKED_BYTES);
+            buffer.putInt(HEADER_CHECKED_BYTES, crc(checked.slice()));
+            for (int i = HEADER_CHECKED_BYTES + 4; i < HEADER_BYTES; i += 4)
+                buffer.putInt(i, 0);
+            buffer.position(HEADER_BYTES);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.seng4400.prime;
+
+import java.util.Arrays;
+
+/**
+ * Engine implementing a segmented Sieve of Eratosthenes. Only the base primes up to the square root of the max are
+ * found up front, the range is then sieved one block at a time so that the working memory stays the size of a single
+ * block however large the max is. Blocks use the same odd only, bit packed layout as the {@link SieveEngine} and are
+ * sized to sit in the L1 or L2 cache while they are being crossed off.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class SegmentedSieveEngine implements PrimeEngine {
+
+    /**
+     * The name used to select this engine.
+     */
+    public static final String NAME = "segmented";
+
+    /**
+     * The default size of a block in bytes, which covers just over half a million values.
+     */
+    public static final int DEFAULT_SEGMENT_BYTES = 32 * 1024;
+
+    private final int segmentBits;
+
+    /**
+     * Constructor creating an engine with the default block size.
+     */
+    public SegmentedSieveEngine() {
+        this(DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Constructor creating an engine with the given block size. The size is rounded up to a whole number of words.
+     *
+     * @param segmentBytes  The size of a block in bytes
+     */
+    public SegmentedSieveEngine(int segmentBytes) {
+        if (segmentBytes <= 0)
+            throw new IllegalArgumentException("Error. Segment size must be positive.");
+        this.segmentBits = ((segmentBytes + 7) >>> 3) << 6;
+    }
+
+    @Override
+    public IntSlice getPrimes(int max) {
+        if (max < 2)
+            return IntSlice.empty();
+        IntSliceBuilder primes = new IntSliceBuilder(SieveEngine.estimateCount(max));
+        primes.add(2);
+        int[] basePrimes = basePrimes(max);
+        long[] segment = new long[segmentBits >>> 6];
+        long end = oddIndex(max) + 1;
+        for (long low = 0; low < end; low += segmentBits)
+            sieveSegment(basePrimes, low, Math.min(low + segmentBits, end), segment, primes);
+        return primes.build();
+    }
+
+    /**
+     * Function returns the size of a block in bits, being the number of odd values each block covers.
+     *
+     * @return              The number of odd values in a block
+     */
+    public int getSegmentBits() {
+        return segmentBits;
+    }
+
+    /**
+     * Function returns the odd primes up to the square root of the given max, which are all that is needed to sieve any
+     * block of the range.
+     *
+     * @param max           The value to specify the max range
+     * @return              The odd base primes in ascending order
+     */
+    static int[] basePrimes(int max) {
+        int root = (int) Math.sqrt((double) max);
+        while ((long) (root + 1) * (root + 1) <= max)                           // Correct any rounding in sqrt
+            root++;
+        if (root < 3)
+            return new int[0];
+        int bitCount = (root - 1) / 2 + 1;
+        long[] composite = SieveEngine.sieve(bitCount);
+        int[] primes = new int[bitCount];
+        int count = 0;
+        for (int i = 1; i < bitCount; i++) {
+            if ((composite[i >>> 6] & (1L << i)) == 0)
+                primes[count++] = 2 * i + 1;
+        }
+        int[] result = new int[count];
+        System.arraycopy(primes, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * Function returns the index of the odd value at or below the given value.
+     *
+     * @param value         The value to find the index of
+     * @return              The bit index representing the value
+     */
+    static long oddIndex(long value) {
+        return (value - 1) >>> 1;
+    }
+
+    /**
+     * Method sieves one block of odd values, from bit index low up to but not including high, and adds every prime
+     * found in the block to the buffer. The block array is cleared before use so the same array can be passed for every
+     * block of a range.
+     *
+     * @param basePrimes    The odd primes up to the square root of the highest value in the block
+     * @param low           The index of the first odd value in the block
+     * @param high          The index after the last odd value in the block
+     * @param segment       The array holding the bits of the block
+     * @param primes        The buffer that the primes are added to
+     */
+    static void sieveSegment(int[] basePrimes, long low, long high, long[] segment, IntSliceBuilder primes) {
+        int bits = (int) (high - low);
+        int words = (bits + 63) >>> 6;
+        Arrays.fill(segment, 0, words, 0L);
+        long lowValue = 2 * low + 1;
+        long highValue = 2 * high - 1;
+        for (int p : basePrimes) {
+            long square = (long) p * p;
+            if (square > highValue)
+                break;
+            long first;
+            if (square >= lowValue) {
+                first = square;
+            } else {
+                first = (lowValue + p - 1) / p * p;                             // First multiple of p in the block
+                if ((first & 1) == 0)                                           // Skip to the next odd multiple
+                    first += p;
+            }
+            for (long j = oddIndex(first) - low; j < bits; j += p)
+                segment[(int) (j >>> 6)] |= 1L << j;
+        }
+        if (low == 0)
+            segment[0] |= 1L;                                                   // One is not prime
+        for (int word = 0; word < words; word++) {
+            long candidates = ~segment[word];
+            while (candidates != 0) {                                           // Visit each clear bit in the word
+                int index = (word << 6) + Long.numberOfTrailingZeros(candidates);
+                if (index >= bits)
+                    break;
+                primes.add((int) (2 * (low + index) + 1));
+                candidates &= candidates - 1;
+            }
+        }
+    }
+}
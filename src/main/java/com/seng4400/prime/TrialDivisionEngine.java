@@ -0,0 +1,34 @@
+package com.seng4400.prime;
+
+/**
+ * Reference engine which tests every value in the range by trial division. It is far slower than the sieve engines but
+ * simple enough to be trusted, so it is kept as the baseline that the other engines are checked against.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class TrialDivisionEngine implements PrimeEngine {
+
+    /**
+     * The name used to select this engine.
+     */
+    public static final String NAME = "trial-division";
+
+    @Override
+    public IntSlice getPrimes(int max) {
+        IntSliceBuilder primes = new IntSliceBuilder(SieveEngine.estimateCount(max));
+        for (long i = 2; i <= max; i++) {                                       // Long, so the loop ends at MAX_VALUE
+            boolean isPrime = true;
+            for (long j = 2; j <= i/j; ++j) {                                   // Check if j is a factor of i
+                if (i % j == 0) {                                               // If it is, do not add to list
+                    isPrime = false;
+                    break;
+                }
+            }
+            if (isPrime)
+                primes.add((int) i);
+        }
+        return primes.build();
+    }
+}
@@ -0,0 +1,47 @@
+package com.seng4400.sink;
+
+import com.seng4400.json.Answer;
+
+import java.io.Closeable;
+
+/**
+ * A sink is the stage that delivers answers once they have been computed. A sink may deliver an answer straight away
+ * on the calling thread or hand it to a stage of its own, so the outcome of every answer is reported to its callback.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public interface AnswerSink extends Closeable {
+
+    /**
+     * Method hands an answer to the sink for delivery. A sink with no room left blocks until there is, so callers
+     * should check {@link #hasCapacity(int)} first if they must not block.
+     *
+     * @param answer                The answer to deliver
+     * @param callback              The callback told the outcome of the delivery
+     * @throws InterruptedException Throws if the thread is interrupted while waiting for room
+     */
+    void submit(Answer answer, SendCallback callback) throws InterruptedException;
+
+    /**
+     * Function returns whether the sink can take the given number of answers without blocking.
+     *
+     * @param answers       The number of answers about to be submitted
+     * @return              True if the answers can be taken without blocking
+     */
+    default boolean hasCapacity(int answers) {
+        return true;
+    }
+
+    /**
+     * Function returns whether every thread of the sink has stopped, so that no answer handed to it is still in use.
+     * The wait of a close is bounded, so a sink with threads of its own may still be sending once it is closed. A sink
+     * sending on the calling thread has always stopped.
+     *
+     * @return              True if no thread of the sink is still running
+     */
+    default boolean isTerminated() {
+        return true;
+    }
+}
@@ -0,0 +1,125 @@
+package com.seng4400.sink;
+
+import com.seng4400.http.AnswerContent;
+import com.seng4400.http.EndpointClient;
+import com.seng4400.json.Answer;
+import com.seng4400.json.AnswerWriter;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sink decoupling delivery from the consumer. Answers are placed on a bounded queue and a fixed number of sender
+ * threads take them off and post them to the endpoint, so up to that many requests are in flight at once and a slow
+ * response no longer holds up the poll loop. When the queue is close to full the consumer is expected to pause its
+ * partitions, using {@link #hasCapacity(int)}, rather than block in {@link #submit(Answer, SendCallback)}.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class AsyncEndpointSink implements AnswerSink {
+
+    private static final Pending SHUTDOWN = new Pending(null, null);
+
+    private final EndpointClient endpoint;
+    private final BlockingQueue<Pending> queue;
+    private final Thread[] senders;
+
+    /**
+     * Constructor creating the sink and starting its sender threads.
+     *
+     * @param endpoint      The client used to post the answers
+     * @param concurrency   The number of requests in flight at once
+     * @param queueSize     The number of answers waiting to be sent before the sink is full
+     */
+    public AsyncEndpointSink(EndpointClient endpoint, int concurrency, int queueSize) {
+        if (concurrency <= 0 || queueSize <= 0)
+            throw new IllegalArgumentException("Error. Concurrency and queue size must be positive.");
+        this.endpoint = endpoint;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.senders = new Thread[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            senders[i] = new Thread(this::drain, "answer-sender-" + i);
+            senders[i].setDaemon(true);
+            senders[i].start();
+        }
+    }
+
+    @Override
+    public void submit(Answer answer, SendCallback callback) throws InterruptedException {
+        queue.put(new Pending(answer, callback));
+    }
+
+    @Override
+    public boolean hasCapacity(int answers) {
+        return queue.remainingCapacity() >= answers;
+    }
+
+    /**
+     * Method run by each sender thread, posting answers from the queue until the sink is closed. Each thread has its
+     * own writer since a writer is not thread safe.
+     */
+    private void drain() {
+        AnswerWriter writer = new AnswerWriter(false);
+        while (true) {
+            Pending pending;
+            try {
+                pending = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (pending == SHUTDOWN)
+                return;
+            try {
+                endpoint.post(new AnswerContent(writer, pending.answer));
+            } catch (IOException | RuntimeException e) {
+                pending.callback.onComplete(pending.answer, e);
+                continue;
+            }
+            pending.callback.onComplete(pending.answer, null);
+        }
+    }
+
+    /**
+     * Method waits for the queued answers to be sent, stops the sender threads and closes the endpoint client.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            for (int i = 0; i < senders.length; i++)
+                queue.put(SHUTDOWN);
+            for (Thread sender : senders)
+                sender.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            endpoint.close();
+        }
+    }
+
+    @Override
+    public boolean isTerminated() {
+        for (Thread sender : senders) {
+            if (sender.isAlive())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * An answer waiting to be sent along with its callback.
+     */
+    private static final class Pending {
+
+        final Answer answer;
+        final SendCallback callback;
+
+        Pending(Answer answer, SendCallback callback) {
+            this.answer = answer;
+            this.callback = callback;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.seng4400.sink;
+
+import java.io.IOException;
+
+/**
+ * Exception reporting that the endpoint rejected one answer of a batch while accepting the others.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class BatchItemException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor creating the exception.
+     *
+     * @param status        The status the endpoint gave the answer
+     * @param message       The error the endpoint gave the answer
+     */
+    public BatchItemException(int status, String message) {
+        super("Answer rejected with status " + status + (message == null ? "" : ": " + message));
+    }
+}
@@ -0,0 +1,276 @@
+package com.seng4400.sink;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.seng4400.http.BatchContent;
+import com.seng4400.http.EndpointClient;
+import com.seng4400.json.Answer;
+import com.seng4400.json.AnswerWriter;
+import com.seng4400.json.Json;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sink packing many answers into each POST request so that the headers, authentication and round trip of a request
+ * are shared by the whole batch. Answers are added to the open batch in the order they are submitted, which is offset
+ * order, and the batch is closed and queued for sending once it holds the configured number of answers or bytes, or
+ * once its first answer has waited for the linger time. Closed batches are sent by a fixed number of sender threads.
+ *
+ * The endpoint may answer a batch with a JSON array holding an object with a "status" for each answer, in which case
+ * the outcome of every answer is reported separately and answers with a status of 300 or more fail with a
+ * {@link BatchItemException}. Any other response applies to the whole batch.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class BatchingEndpointSink implements AnswerSink {
+
+    private static final List<Pending> SHUTDOWN = new ArrayList<>();
+    private static final List<Pending> OPENED = new ArrayList<>();
+
+    private final EndpointClient endpoint;
+    private final int maxCount;
+    private final long maxBytes;
+    private final long lingerNanos;
+    private final int maxPending;
+    private final BatchContent.Format format;
+    private final BlockingQueue<List<Pending>> batches = new LinkedBlockingQueue<>();
+    private final Thread[] senders;
+
+    private List<Pending> open = new ArrayList<>();
+    private long openBytes;
+    private long openedAt;
+    private int pending;
+
+    /**
+     * Constructor creating the sink and starting its sender threads.
+     *
+     * @param endpoint      The client used to post the batches
+     * @param concurrency   The number of batches in flight at once
+     * @param maxPending    The number of answers waiting to be sent before the sink is full
+     * @param maxCount      The number of answers that closes a batch
+     * @param maxBytes      The size in bytes that closes a batch
+     * @param lingerMillis  The time the first answer of a batch waits before the batch is closed
+     * @param format        The layout of the body of each request
+     */
+    public BatchingEndpointSink(EndpointClient endpoint, int concurrency, int maxPending, int maxCount,
+                                long maxBytes, long lingerMillis, BatchContent.Format format) {
+        if (concurrency <= 0 || maxPending <= 0 || maxCount <= 0 || maxBytes <= 0 || lingerMillis < 0)
+            throw new IllegalArgumentException("Error. Batch settings must be positive.");
+        this.endpoint = endpoint;
+        this.maxCount = maxCount;
+        this.maxBytes = maxBytes;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.maxPending = maxPending;
+        this.format = format;
+        this.senders = new Thread[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            senders[i] = new Thread(this::drain, "batch-sender-" + i);
+            senders[i].setDaemon(true);
+            senders[i].start();
+        }
+    }
+
+    @Override
+    public synchronized void submit(Answer answer, SendCallback callback) throws InterruptedException {
+        while (pending >= maxPending)
+            wait();
+        boolean opened = open.isEmpty();
+        if (opened)
+            openedAt = System.nanoTime();
+        open.add(new Pending(answer, callback));
+        openBytes += AnswerWriter.maxCompactLength(answer) + 1;
+        pending++;
+        if (open.size() >= maxCount || openBytes >= maxBytes)
+            closeBatch();
+        else if (opened)
+            batches.add(OPENED);                                                // Wake a sender to time the linger
+    }
+
+    @Override
+    public synchronized boolean hasCapacity(int answers) {
+        return maxPending - pending >= answers;
+    }
+
+    /**
+     * Method closes the open batch and queues it for sending.
+     */
+    private void closeBatch() {
+        if (open.isEmpty())
+            return;
+        batches.add(open);
+        open = new ArrayList<>();
+        openBytes = 0;
+    }
+
+    /**
+     * Function closes the open batch if its first answer has waited for the linger time, and otherwise returns how
+     * long is left before it will have.
+     *
+     * @return              The nanoseconds until the open batch lingers long enough
+     */
+    private synchronized long closeLingeringBatch() {
+        if (open.isEmpty())
+            return lingerNanos > 0 ? lingerNanos : TimeUnit.MILLISECONDS.toNanos(100);
+        long remaining = openedAt + lingerNanos - System.nanoTime();
+        if (remaining <= 0) {
+            closeBatch();
+            return lingerNanos > 0 ? lingerNanos : TimeUnit.MILLISECONDS.toNanos(100);
+        }
+        return remaining;
+    }
+
+    /**
+     * Method marks the answers of a finished batch as no longer pending, waking a consumer waiting for room.
+     *
+     * @param count         The number of answers finished
+     */
+    private synchronized void release(int count) {
+        pending -= count;
+        notifyAll();
+    }
+
+    /**
+     * Method run by each sender thread, sending closed batches until the sink is closed and closing the open batch
+     * when it has lingered long enough. A sender is woken as soon as a batch is opened, so with no linger the batch is
+     * closed and sent by the first free sender, gathering whatever answers arrived while every sender was busy.
+     */
+    private void drain() {
+        AnswerWriter writer = new AnswerWriter(false);
+        while (true) {
+            List<Pending> batch;
+            try {
+                batch = batches.poll(closeLingeringBatch(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (batch == SHUTDOWN)
+                return;
+            if (batch != null && batch != OPENED)
+                send(writer, batch);
+        }
+    }
+
+    /**
+     * Method posts one batch and reports the outcome of each of its answers.
+     *
+     * @param writer        The writer used to write the answers
+     * @param batch         The answers to send, in offset order
+     */
+    private void send(AnswerWriter writer, List<Pending> batch) {
+        List<Answer> answers = new ArrayList<>(batch.size());
+        for (Pending item : batch)
+            answers.add(item.answer);
+        try {
+            String response;
+            try {
+                response = endpoint.exchange(new BatchContent(writer, answers, format));
+            } catch (IOException | RuntimeException e) {
+                for (Pending item : batch)
+                    item.callback.onComplete(item.answer, e);
+                return;
+            }
+            JsonArray statuses = itemStatuses(response, batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                Pending item = batch.get(i);
+                item.callback.onComplete(item.answer, statuses == null ? null : itemError(statuses.get(i)));
+            }
+        } finally {
+            release(batch.size());
+        }
+    }
+
+    /**
+     * Function returns the per answer statuses in the response, or null if the response does not hold one status for
+     * every answer in the batch.
+     *
+     * @param response      The body of the response
+     * @param size          The number of answers in the batch
+     * @return              The array of statuses, or null
+     */
+    static JsonArray itemStatuses(String response, int size) {
+        if (response == null || response.isEmpty())
+            return null;
+        try {
+            JsonElement element = Json.GSON.fromJson(response, JsonElement.class);
+            if (element != null && element.isJsonArray() && element.getAsJsonArray().size() == size)
+                return element.getAsJsonArray();
+        } catch (JsonParseException e) {
+            return null;
+        }
+        return null;
+    }
+
+    /**
+     * Function returns the error for an answer given its status, or null if the endpoint accepted it.
+     *
+     * @param status        The status object of the answer
+     * @return              The error, or null
+     */
+    static Exception itemError(JsonElement status) {
+        if (status == null || !status.isJsonObject())
+            return null;
+        JsonObject object = status.getAsJsonObject();
+        if (!object.has("status") || !object.get("status").isJsonPrimitive()
+                || !object.getAsJsonPrimitive("status").isNumber())
+            return null;
+        int code = object.get("status").getAsInt();
+        if (code < 300)
+            return null;
+        String message = object.has("error") && object.get("error").isJsonPrimitive()
+                ? object.get("error").getAsString() : null;
+        return new BatchItemException(code, message);
+    }
+
+    /**
+     * Method closes the open batch, waits for the queued batches to be sent, stops the sender threads and closes the
+     * endpoint client.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            synchronized (this) {
+                closeBatch();
+            }
+            for (int i = 0; i < senders.length; i++)
+                batches.add(SHUTDOWN);
+            for (Thread sender : senders)
+                sender.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            endpoint.close();
+        }
+    }
+
+    @Override
+    public boolean isTerminated() {
+        for (Thread sender : senders) {
+            if (sender.isAlive())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * An answer waiting to be sent along with its callback.
+     */
+    private static final class Pending {
+
+        final Answer answer;
+        final SendCallback callback;
+
+        Pending(Answer answer, SendCallback callback) {
+            this.answer = answer;
+            this.callback = callback;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.seng4400.sink;
+
+/**
+ * Callback told the outcome of writing a rejected record to the dead letters. It is called once for every record
+ * rejected, possibly on a thread belonging to the dead letter sink.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+@FunctionalInterface
+public interface DeadLetterCallback {
+
+    /**
+     * Method called when the write of the rejected record has finished.
+     *
+     * @param error         The reason the write failed, or null if the record was written
+     */
+    void onComplete(Exception error);
+}
@@ -0,0 +1,97 @@
+package com.seng4400.sink;
+
+import com.seng4400.consumer.Limit;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Sink for records that are rejected rather than answered, such as malformed values or values above the largest that
+ * will be answered. Every rejected record is counted by reason so that operators can see how much is being rejected,
+ * and is then written to the dead letter destination of the subclass along with its reason.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public abstract class DeadLetterSink implements Closeable {
+
+    private final AtomicLongArray counts = new AtomicLongArray(RejectReason.values().length);
+
+    /**
+     * Method counts the rejected record and writes it to the dead letters. The callback is told once the write has
+     * been acknowledged or has failed, so that the offset of the record is only committed once it is written.
+     *
+     * @param record        The rejected record
+     * @param reason        The reason the record was rejected
+     * @param callback      The callback told the outcome of the write
+     */
+    public void reject(ConsumerRecord<?, Limit> record, RejectReason reason, DeadLetterCallback callback) {
+        counts.incrementAndGet(reason.ordinal());
+        try {
+            write(record, reason, rawValue(record.value()), callback);
+        } catch (RuntimeException e) {
+            callback.onComplete(e);
+        }
+    }
+
+    /**
+     * Function returns the number of records rejected for the reason.
+     *
+     * @param reason        The reason records were rejected
+     * @return              The number of records rejected for the reason
+     */
+    public long getRejected(RejectReason reason) {
+        return counts.get(reason.ordinal());
+    }
+
+    /**
+     * Function returns the number of records rejected for each reason.
+     *
+     * @return              The counts by reason
+     */
+    public Map<RejectReason, Long> getRejected() {
+        Map<RejectReason, Long> rejected = new EnumMap<>(RejectReason.class);
+        for (RejectReason reason : RejectReason.values())
+            rejected.put(reason, counts.get(reason.ordinal()));
+        return rejected;
+    }
+
+    /**
+     * Function returns the total number of records rejected.
+     *
+     * @return              The number of records rejected
+     */
+    public long getRejectedTotal() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++)
+            total += counts.get(i);
+        return total;
+    }
+
+    /**
+     * Method writes the rejected record to the dead letter destination, telling the callback once it is written.
+     *
+     * @param record        The rejected record
+     * @param reason        The reason the record was rejected
+     * @param value         The bytes of the value of the record, or null if it had none
+     * @param callback      The callback told the outcome of the write
+     */
+    protected abstract void write(ConsumerRecord<?, Limit> record, RejectReason reason, byte[] value,
+                                  DeadLetterCallback callback);
+
+    /**
+     * Function returns the bytes of the value of a record, rebuilding them from the limit when it was valid.
+     */
+    private static byte[] rawValue(Limit limit) {
+        if (limit == null)
+            return null;
+        if (limit.isValid())
+            return Integer.toString(limit.getValue()).getBytes(StandardCharsets.US_ASCII);
+        return limit.getRaw();
+    }
+}
@@ -0,0 +1,46 @@
+package com.seng4400.sink;
+
+import com.seng4400.http.AnswerContent;
+import com.seng4400.http.EndpointClient;
+import com.seng4400.json.Answer;
+import com.seng4400.json.AnswerWriter;
+
+import java.io.IOException;
+
+/**
+ * Sink posting each answer to the endpoint on the calling thread, so the caller waits for the response. Any number of
+ * threads may submit at once, each request using a writer of its own.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class EndpointSink implements AnswerSink {
+
+    private final EndpointClient endpoint;
+
+    /**
+     * Constructor creating a sink posting to the endpoint.
+     *
+     * @param endpoint      The client used to post the answers
+     */
+    public EndpointSink(EndpointClient endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    @Override
+    public void submit(Answer answer, SendCallback callback) {
+        try {
+            endpoint.post(new AnswerContent(new AnswerWriter(false), answer));
+        } catch (IOException | RuntimeException e) {
+            callback.onComplete(answer, e);
+            return;
+        }
+        callback.onComplete(answer, null);
+    }
+
+    @Override
+    public void close() throws IOException {
+        endpoint.close();
+    }
+}
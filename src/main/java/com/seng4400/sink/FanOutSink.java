@@ -0,0 +1,65 @@
+package com.seng4400.sink;
+
+import com.seng4400.json.Answer;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sink delivering every answer to two sinks, such as the endpoint and the reply topic. The callback of an answer is
+ * told once both sinks have finished with it, with the first error if either failed.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class FanOutSink implements AnswerSink {
+
+    private final AnswerSink first;
+    private final AnswerSink second;
+
+    /**
+     * Constructor creating a sink delivering to both sinks.
+     *
+     * @param first         The first sink
+     * @param second        The second sink
+     */
+    public FanOutSink(AnswerSink first, AnswerSink second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    @Override
+    public void submit(Answer answer, SendCallback callback) throws InterruptedException {
+        AtomicInteger remaining = new AtomicInteger(2);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        SendCallback joined = (sent, error) -> {
+            if (error != null)
+                failure.compareAndSet(null, error);
+            if (remaining.decrementAndGet() == 0)
+                callback.onComplete(answer, failure.get());
+        };
+        first.submit(answer, joined);
+        second.submit(answer, joined);
+    }
+
+    @Override
+    public boolean hasCapacity(int answers) {
+        return first.hasCapacity(answers) && second.hasCapacity(answers);
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return first.isTerminated() && second.isTerminated();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            first.close();
+        } finally {
+            second.close();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.seng4400.sink;
+
+import com.seng4400.consumer.Limit;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+/**
+ * Dead letter sink producing every rejected record to a Kafka topic. The key and value of the record are kept as they
+ * were, and the reason along with the topic, partition and offset the record came from are added as headers. A record
+ * is only written once the topic has acknowledged it with every replica.
+ *
+ * Records are rejected on the poll thread, so the producer waits at most a second for the topic metadata or for room in
+ * its buffer. A send that cannot start in that time fails, and the record is consumed again rather than holding up the
+ * poll loop until the consumer leaves the group.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class KafkaDeadLetterSink extends DeadLetterSink {
+
+    /**
+     * The most milliseconds a send may block the poll thread.
+     */
+    static final long MAX_BLOCK_MILLIS = 1000;
+
+    private final Producer<String, ? super byte[]> producer;
+    private final String topic;
+
+    /**
+     * Constructor creating a sink producing to the topic.
+     *
+     * @param bootstrapServers  The Kafka servers to connect to
+     * @param topic             The dead letter topic
+     */
+    public KafkaDeadLetterSink(String bootstrapServers, String topic) {
+        Properties props = new Properties();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, Long.toString(MAX_BLOCK_MILLIS));
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+        this.producer = new KafkaProducer<>(props);
+        this.topic = topic;
+    }
+
+    /**
+     * Constructor creating a sink producing to the topic through the given producer, such as a transactional producer
+     * shared with the answers so that the dead letters of a poll are committed along with its answers.
+     *
+     * @param producer          The producer the dead letters are sent with
+     * @param topic             The dead letter topic
+     */
+    public KafkaDeadLetterSink(Producer<String, ? super byte[]> producer, String topic) {
+        this.producer = producer;
+        this.topic = topic;
+    }
+
+    @Override
+    protected void write(ConsumerRecord<?, Limit> record, RejectReason reason, byte[] value,
+                         DeadLetterCallback callback) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add("reason", utf8(reason.name()));
+        headers.add("source.topic", utf8(record.topic()));
+        headers.add("source.partition", utf8(Integer.toString(record.partition())));
+        headers.add("source.offset", utf8(Long.toString(record.offset())));
+        Object key = record.key();
+        producer.send(new ProducerRecord<>(topic, null, key == null ? null : key.toString(), value, headers),
+                (metadata, error) -> callback.onComplete(error));
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() {
+        producer.close();
+    }
+}
@@ -0,0 +1,73 @@
+package com.seng4400.sink;
+
+import com.seng4400.json.Answer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+
+import java.util.Properties;
+
+/**
+ * Sink publishing every answer to a Kafka reply topic as compact JSON, keyed by the key of the record that asked the
+ * question. The producer gathers answers into batches, waiting up to the linger time for a batch to fill, and
+ * compresses each batch, which suits the long runs of digits in an answer.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class KafkaReplySink implements AnswerSink {
+
+    private final Producer<String, ? super Answer> producer;
+    private final String topic;
+
+    /**
+     * Constructor creating a sink publishing to the topic with the given producer.
+     *
+     * @param producer          The producer used to publish the answers
+     * @param topic             The reply topic
+     */
+    public KafkaReplySink(Producer<String, ? super Answer> producer, String topic) {
+        this.producer = producer;
+        this.topic = topic;
+    }
+
+    /**
+     * Function returns the tuned producer settings.
+     *
+     * @param bootstrapServers  The Kafka servers to connect to
+     * @param lingerMillis      The time the producer waits for a batch to fill
+     * @param batchBytes        The size of a batch in bytes
+     * @param compression       The compression of each batch
+     * @param maxRequestBytes   The size of the largest request
+     * @return                  The producer properties
+     */
+    public static Properties producerProperties(String bootstrapServers, long lingerMillis, int batchBytes,
+                                                String compression, int maxRequestBytes) {
+        Properties props = new Properties();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true");
+        props.put(ProducerConfig.LINGER_MS_CONFIG, Long.toString(lingerMillis));
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, Integer.toString(batchBytes));
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compression);
+        props.put(ProducerConfig.MAX_REQUEST_SIZE_CONFIG, Integer.toString(maxRequestBytes));
+        return props;
+    }
+
+    @Override
+    public void submit(Answer answer, SendCallback callback) {
+        try {
+            producer.send(new ProducerRecord<>(topic, answer.getKey(), answer),
+                    (metadata, error) -> callback.onComplete(answer, error));
+        } catch (KafkaException e) {
+            callback.onComplete(answer, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        producer.close();
+    }
+}
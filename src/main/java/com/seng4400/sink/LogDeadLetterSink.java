@@ -0,0 +1,44 @@
+package com.seng4400.sink;
+
+import com.seng4400.consumer.Limit;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Dead letter sink writing every rejected record as one line of text, standing in for a dead letter topic when none is
+ * configured. Each line holds the topic, partition and offset of the record, the reason and the value.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class LogDeadLetterSink extends DeadLetterSink {
+
+    private final PrintStream out;
+
+    /**
+     * Constructor creating a sink writing to the stream.
+     *
+     * @param out           The stream the lines are written to
+     */
+    public LogDeadLetterSink(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    protected void write(ConsumerRecord<?, Limit> record, RejectReason reason, byte[] value,
+                         DeadLetterCallback callback) {
+        out.println("dead-letter " + record.topic() + "-" + record.partition() + "@" + record.offset() + " "
+                + reason + " " + (value == null ? "null" : new String(value, StandardCharsets.UTF_8)));
+        callback.onComplete(out.checkError() ? new IOException("Failed to write dead letter line") : null);
+    }
+
+    @Override
+    public void close() {
+        if (out != System.err && out != System.out)
+            out.close();
+    }
+}
@@ -0,0 +1,40 @@
+package com.seng4400.sink;
+
+import com.seng4400.consumer.Limit;
+
+/**
+ * The reasons a record is rejected and sent to the dead letters instead of being answered, or after its answer failed.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public enum RejectReason {
+    /** The record has no value. */
+    MISSING,
+    /** The value is not a decimal integer. */
+    MALFORMED,
+    /** The value does not fit in an int. */
+    OVERFLOW,
+    /** The value is above the largest value that will be answered. */
+    OUT_OF_RANGE,
+    /** The record could not be processed or its answer could not be delivered. */
+    FAILED;
+
+    /**
+     * Function returns the reason matching the error of an invalid limit.
+     *
+     * @param error         The reason the limit could not be read
+     * @return              The reason the record is rejected
+     */
+    public static RejectReason of(Limit.Error error) {
+        switch (error) {
+            case MISSING:
+                return MISSING;
+            case OVERFLOW:
+                return OVERFLOW;
+            default:
+                return MALFORMED;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.seng4400.sink;
+
+import com.seng4400.json.Answer;
+
+/**
+ * Callback told the outcome of delivering an answer. It is called once for every answer submitted to a sink, possibly
+ * on a thread belonging to the sink.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+@FunctionalInterface
+public interface SendCallback {
+
+    /**
+     * Method called when delivery of the answer has finished.
+     *
+     * @param answer        The answer that was delivered
+     * @param error         The reason delivery failed, or null if the answer was delivered
+     */
+    void onComplete(Answer answer, Exception error);
+}
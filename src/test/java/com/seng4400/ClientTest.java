@@ -0,0 +1,75 @@
+package com.seng4400;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests checking that settings which do not work together are rejected at startup, before the client connects to
+ * anything, and that the profiles shipped with the client are valid.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class ClientTest {
+
+    /**
+     * Function returns the problems listed when the client is started with the arguments.
+     *
+     * @param args          The program arguments, which must not be a valid configuration
+     * @return              The problems, one per line
+     */
+    private static String[] problems(String... args) {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> Client.main(args));
+        String message = error.getMessage();
+        assertTrue(message.startsWith("Error. Invalid configuration:\n  "), message);
+        return message.substring(message.indexOf('\n') + 3).split("\n  ");
+    }
+
+    @Test
+    void listsEveryProblem() {
+        String[] problems = problems("--limit.max=1", "--poll.timeout=0", "--consumer.heartbeat.interval.ms=20000");
+        assertEquals(3, problems.length);
+        assertTrue(problems[0].startsWith("limit.max"));
+        assertTrue(problems[1].startsWith("poll.timeout"));
+        assertTrue(problems[2].startsWith("consumer.heartbeat.interval.ms"));
+    }
+
+    @Test
+    void checksTimeoutsAgainstThePollInterval() {
+        String[] problems = problems("--processing.timeout=19950", "--poll.timeout=100");
+        assertEquals(1, problems.length);
+        assertTrue(problems[0].startsWith("processing.timeout plus poll.timeout (20050 ms)"), problems[0]);
+    }
+
+    @Test
+    void checksRoomForOnePoll() {
+        String[] problems = problems("--consumer.max.poll.records=50", "--workers.max-in-flight=10",
+                "--http.queue=10");
+        assertEquals(2, problems.length);
+        assertTrue(problems[0].startsWith("workers.max-in-flight"));
+        assertTrue(problems[1].startsWith("http.queue"));
+        assertEquals(1, problems("--reply.mode=kafka", "--consumer.max.poll.records=50",
+                "--http.queue=10", "--limit.max=0").length);                    // Queue unused with no endpoint
+    }
+
+    @Test
+    void rejectsBatchingOnVirtualThreads() {
+        String[] problems = problems("--runtime=virtual", "--batch.size=50");
+        assertEquals(1, problems.length);
+        assertTrue(problems[0].startsWith("batch.size must be 0 with runtime=virtual"), problems[0]);
+        assertEquals(1, problems("--runtime=virtual", "--batch.size=50", "--reply.mode=kafka",
+                "--limit.max=0").length);                                       // Batch unused with no endpoint
+    }
+
+    @Test
+    void profilesAreValid() {
+        for (String profile : new String[] {"low-latency", "throughput"}) {
+            String[] problems = problems("--profile=" + profile, "--limit.max=1");
+            assertEquals(1, problems.length, profile + ": " + String.join(", ", problems));
+        }
+    }
+}
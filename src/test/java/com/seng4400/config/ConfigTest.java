@@ -0,0 +1,108 @@
+package com.seng4400.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests checking that each source of options overrides the ones before it, that keys are matched however they are
+ * spelt and that values which cannot be read are rejected. Environment variables cannot be set from a test, so only
+ * the other sources are layered here.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class ConfigTest {
+
+    private static final String[] PROPERTIES = {"seng4400.poll.timeout", "seng4400.commit.interval"};
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void clearProperties() {
+        for (String name : PROPERTIES)
+            System.clearProperty(name);
+    }
+
+    /**
+     * Function writes a properties file holding the lines.
+     *
+     * @param lines         The lines of the file
+     * @return              The argument naming the file as the config option
+     * @throws IOException  Throws if the file cannot be written
+     */
+    private String configFile(String... lines) throws IOException {
+        Path file = dir.resolve("client.properties");
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return "--config=" + file;
+    }
+
+    @Test
+    void laterSourcesOverrideEarlierOnes() throws IOException {
+        String config = configFile("poll.timeout=200", "commit.interval=2000", "workers=3");
+        System.setProperty("seng4400.poll.timeout", "300");
+        System.setProperty("seng4400.commit.interval", "3000");
+        Config options = Config.load(new String[] {"--profile=throughput", config, "--poll.timeout=400"});
+        assertEquals(400, options.getLong("poll.timeout", 0));                  // Program argument
+        assertEquals(3000, options.getLong("commit.interval", 0));              // System property
+        assertEquals(3, options.getInt("workers", 0));                          // Config file
+        assertEquals(5000, options.getInt("workers.max-in-flight", 0));         // Profile
+        assertEquals(7, options.getInt("http.concurrency", 7));                 // Default
+    }
+
+    @Test
+    void readsProfileNamedInTheFile() throws IOException {
+        Config options = Config.load(new String[] {configFile("profile=low-latency")});
+        assertEquals(0, options.getLong("batch.linger", 50));
+        assertThrows(IllegalArgumentException.class, () -> Config.load(new String[] {"--profile=fastest"}));
+        assertThrows(IOException.class, () -> Config.load(new String[] {"--config=" + dir.resolve("missing")}));
+    }
+
+    @Test
+    void matchesKeysHoweverSpelt() throws IOException {
+        Config options = Config.load(new String[] {"--Limit_Max=5000", "--workers.MAX-in_flight= 9 "});
+        assertEquals(5000, options.getInt("limit.max", 0));
+        assertEquals("5000", options.getString("LIMIT-MAX", null));
+        assertEquals(9, options.getInt("workers.max-in-flight", 0));
+    }
+
+    @Test
+    void keepsPlainArguments() throws IOException {
+        Config options = Config.load(new String[] {"http://localhost", "--coalesce=false", "--flag", "--=1"});
+        assertEquals(Arrays.asList("http://localhost", "--flag", "--=1"), options.getArguments());
+        assertFalse(options.getBoolean("coalesce", true));
+    }
+
+    @Test
+    void returnsPrefixedOptions() throws IOException {
+        Config options = Config.load(new String[] {"--consumer.fetch-min-bytes= 64 ", "--consumer.=x",
+                "--CONSUMER_MAX_POLL_RECORDS=7", "--producer.acks=1"});
+        Properties consumer = options.getPrefixed("consumer.");
+        assertEquals(2, consumer.size());
+        assertEquals("64", consumer.getProperty("fetch.min.bytes"));
+        assertEquals("7", consumer.getProperty("max.poll.records"));
+        assertTrue(options.getPrefixed("admin.").isEmpty());
+    }
+
+    @Test
+    void rejectsUnreadableValues() throws IOException {
+        Config options = Config.load(new String[] {"--workers=many", "--coalesce=yes"});
+        assertThrows(IllegalArgumentException.class, () -> options.getInt("workers", 1));
+        assertThrows(IllegalArgumentException.class, () -> options.getLong("workers", 1));
+        assertThrows(IllegalArgumentException.class, () -> options.getBoolean("coalesce", true));
+    }
+}
@@ -0,0 +1,130 @@
+package com.seng4400.console;
+
+import com.seng4400.json.Answer;
+import com.seng4400.json.AnswerWriter;
+import com.seng4400.json.Schema;
+import com.seng4400.prime.IntSlice;
+import com.seng4400.prime.SieveEngine;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests checking what each mode writes, that the sampled mode writes one in every n answers and that answers are
+ * dropped rather than waited on once the queue is full.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class ConsoleOutputTest {
+
+    private static final IntSlice PRIMES = new SieveEngine().getPrimes(30);
+
+    /**
+     * Function returns an answer whose key is its number.
+     *
+     * @param number        The number of the answer
+     * @return              The answer
+     */
+    private static Answer answer(int number) {
+        return Answer.ofNanos(PRIMES, 1_500_000, Integer.toString(number), Schema.V1, null);
+    }
+
+    /**
+     * Function prints the answers numbered from zero and returns everything written once the output is closed.
+     *
+     * @param mode          The mode of the output
+     * @param sampleEvery   The number of answers for each one written in the sampled mode
+     * @param answers       The number of answers to print
+     * @return              The text written
+     * @throws IOException  Throws if the output cannot be closed
+     */
+    private static String print(ConsoleOutput.Mode mode, int sampleEvery, int answers) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ConsoleOutput console = new ConsoleOutput(out, mode, sampleEvery, 100)) {
+            for (int i = 0; i < answers; i++)
+                console.print(answer(i));
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void summarisesEachAnswer() throws IOException {
+        assertEquals("key=0 primes=10 first=2 last=29 time_taken=1.500 ms\n"
+                + "key=1 primes=10 first=2 last=29 time_taken=1.500 ms\n", print(ConsoleOutput.Mode.SUMMARY, 1, 2));
+        assertEquals("primes=0 time_taken=0.000 ms", ConsoleOutput.summary(new Answer(IntSlice.empty(), 0)));
+    }
+
+    @Test
+    void writesPrettyJsonOfEveryAnswer() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        AnswerWriter writer = new AnswerWriter(true);
+        for (int i = 0; i < 3; i++) {
+            writer.write(expected, answer(i));
+            expected.write('\n');
+        }
+        assertEquals(new String(expected.toByteArray(), StandardCharsets.UTF_8), print(ConsoleOutput.Mode.FULL, 1, 3));
+    }
+
+    @Test
+    void samplesOneInEveryN() throws IOException {
+        String sampled = print(ConsoleOutput.Mode.SAMPLED, 3, 7);
+        String full = print(ConsoleOutput.Mode.FULL, 1, 1);
+        assertEquals(3 * full.length(), sampled.length());                      // Answers 0, 3 and 6
+        assertEquals("", print(ConsoleOutput.Mode.OFF, 1, 5));
+    }
+
+    @Test
+    void dropsAnswersWhenTheQueueIsFull() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        OutputStream blocking = new OutputStream() {
+            @Override
+            public void write(int b) {
+                written.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                written.write(b, off, len);
+            }
+        };
+        ConsoleOutput console = new ConsoleOutput(blocking, ConsoleOutput.Mode.SUMMARY, 1, 2);
+        console.print(answer(0));
+        assertTrue(writing.await(10, TimeUnit.SECONDS));                        // The writer is held on the stream
+        for (int i = 1; i <= 4; i++)
+            console.print(answer(i));
+        assertEquals(2, console.getDropped());
+        release.countDown();
+        console.close();
+        String[] lines = new String(written.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);                                          // The answers queued before it filled
+        for (int i = 0; i < lines.length; i++)
+            assertTrue(lines[i].startsWith("key=" + i + " "), lines[i]);
+    }
+
+    @Test
+    void rejectsBadSettings() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ConsoleOutput(new ByteArrayOutputStream(), ConsoleOutput.Mode.SAMPLED, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> ConsoleOutput.Mode.of("loud"));
+        assertEquals(ConsoleOutput.Mode.SAMPLED, ConsoleOutput.Mode.of("Sampled"));
+    }
+}
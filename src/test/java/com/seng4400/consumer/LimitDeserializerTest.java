@@ -0,0 +1,83 @@
+package com.seng4400.consumer;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests checking that the deserializer reads the same values as Integer.parseInt and rejects the same input, with the
+ * reason it was rejected.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class LimitDeserializerTest {
+
+    private final LimitDeserializer deserializer = new LimitDeserializer();
+
+    /**
+     * Function deserializes the given text.
+     *
+     * @param text          The text of the record value
+     * @return              The limit read from the text
+     */
+    private Limit read(String text) {
+        return deserializer.deserialize("questions", text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void readsValidValues() {
+        String[] values = {"0", "7", "+7", "-7", "-0", "007", "1000000", "2147483647", "+2147483647", "-2147483648",
+                "0000000000002147483647"};
+        for (String value : values) {
+            Limit limit = read(value);
+            assertTrue(limit.isValid(), value);
+            assertEquals(Integer.parseInt(value), limit.getValue(), value);
+        }
+    }
+
+    @Test
+    void rejectsMissingValues() {
+        assertEquals(Limit.Error.MISSING, deserializer.deserialize("questions", null).getError());
+        assertEquals(Limit.Error.MISSING, read("").getError());
+    }
+
+    @Test
+    void rejectsMalformedValues() {
+        String[] values = {"-", "+", "--1", "+-1", "1-", " 1", "1 ", "1.5", "1e3", "abc", "0x10", "12a4"};
+        for (String value : values) {
+            Limit limit = read(value);
+            assertFalse(limit.isValid(), value);
+            assertEquals(Limit.Error.MALFORMED, limit.getError(), value);
+            assertArrayEquals(value.getBytes(StandardCharsets.US_ASCII), limit.getRaw(), value);
+        }
+    }
+
+    @Test
+    void rejectsOverflowingValues() {
+        String[] values = {"2147483648", "+2147483648", "-2147483649", "99999999999999999999", "9223372036854775808"};
+        for (String value : values) {
+            Limit limit = read(value);
+            assertEquals(Limit.Error.OVERFLOW, limit.getError(), value);
+            assertThrows(IllegalStateException.class, limit::getValue, value);
+        }
+    }
+
+    @Test
+    void reportsMalformedBeforeOverflow() {
+        assertEquals(Limit.Error.MALFORMED, read("99999999999x").getError());
+    }
+
+    @Test
+    void validLimitHasNoRawBytes() {
+        assertNull(read("10").getRaw());
+    }
+}
@@ -0,0 +1,148 @@
+package com.seng4400.consumer;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests checking that the tracker only ever commits past a run of completed records, however out of order they
+ * complete, never past a record that failed, and that a partition holding a failure is rewound to it once its
+ * other records finish.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class OffsetTrackerTest {
+
+    private static final TopicPartition FIRST = new TopicPartition("questions", 0);
+    private static final TopicPartition SECOND = new TopicPartition("questions", 1);
+
+    /**
+     * Function returns the offset the tracker would commit for the partition, or -1 if it has nothing new.
+     *
+     * @param tracker       The tracker to ask
+     * @param partition     The partition to look up
+     * @return              The offset to commit, or -1
+     */
+    private static long commitable(OffsetTracker tracker, TopicPartition partition) {
+        OffsetAndMetadata offset = tracker.commitable().get(partition);
+        return offset == null ? -1 : offset.offset();
+    }
+
+    @Test
+    void commitsOnlyTheCompletedPrefix() {
+        OffsetTracker tracker = new OffsetTracker();
+        for (long offset = 10; offset < 15; offset++)
+            tracker.track(FIRST, offset);
+        tracker.complete(FIRST, 12);
+        tracker.complete(FIRST, 14);
+        assertEquals(-1, commitable(tracker, FIRST));                           // Offset 10 still in flight
+        tracker.complete(FIRST, 10);
+        assertEquals(11, commitable(tracker, FIRST));
+        assertEquals(-1, commitable(tracker, FIRST));                           // Nothing new since the last commit
+        tracker.complete(FIRST, 11);
+        assertEquals(1, tracker.inFlight());
+        tracker.complete(FIRST, 13);
+        assertEquals(15, commitable(tracker, FIRST));
+        assertEquals(0, tracker.inFlight());
+    }
+
+    @Test
+    void tracksPartitionsApart() {
+        OffsetTracker tracker = new OffsetTracker();
+        tracker.track(FIRST, 0);
+        tracker.track(SECOND, 0);
+        tracker.track(SECOND, 1);
+        tracker.complete(SECOND, 1);
+        tracker.complete(SECOND, 0);
+        Map<TopicPartition, OffsetAndMetadata> offsets = tracker.commitable();
+        assertEquals(1, offsets.size());
+        assertEquals(2, offsets.get(SECOND).offset());
+    }
+
+    @Test
+    void neverCommitsPastAFailure() {
+        OffsetTracker tracker = new OffsetTracker();
+        for (long offset = 0; offset < 4; offset++)
+            tracker.track(FIRST, offset);
+        tracker.complete(FIRST, 0);
+        tracker.fail(FIRST, 1);
+        tracker.complete(FIRST, 3);
+        tracker.complete(FIRST, 2);
+        assertEquals(0, tracker.inFlight());
+        assertEquals(1, commitable(tracker, FIRST));
+    }
+
+    @Test
+    void rewindsToTheFailureOnceThePartitionHasFinished() {
+        OffsetTracker tracker = new OffsetTracker();
+        for (long offset = 0; offset < 5; offset++)
+            tracker.track(FIRST, offset);
+        tracker.track(SECOND, 0);
+        tracker.complete(FIRST, 0);
+        tracker.fail(FIRST, 3);
+        tracker.fail(FIRST, 2);
+        assertEquals(Collections.singleton(FIRST), tracker.held());
+        assertTrue(tracker.rewind().isEmpty());                                 // Offsets 1 and 4 still in flight
+        tracker.complete(FIRST, 1);
+        tracker.complete(FIRST, 4);
+        assertEquals(Collections.singletonMap(FIRST, 2L), tracker.rewind());
+        assertTrue(tracker.held().isEmpty());
+        assertTrue(tracker.rewind().isEmpty());
+        assertEquals(2, commitable(tracker, FIRST));                            // The prefix before the failure
+        for (long offset = 2; offset < 5; offset++)                             // Consumed again from the failure
+            tracker.track(FIRST, offset);
+        for (long offset = 2; offset < 5; offset++)
+            tracker.complete(FIRST, offset);
+        assertEquals(5, commitable(tracker, FIRST));
+        assertEquals(1, tracker.inFlight());
+    }
+
+    @Test
+    void ignoresUnknownOffsets() {
+        OffsetTracker tracker = new OffsetTracker();
+        tracker.track(FIRST, 5);
+        tracker.complete(FIRST, 4);
+        tracker.complete(SECOND, 5);
+        tracker.fail(FIRST, 6);
+        assertEquals(1, tracker.inFlight());
+        tracker.complete(FIRST, 5);
+        tracker.complete(FIRST, 5);                                             // A second completion is ignored
+        assertEquals(0, tracker.inFlight());
+        assertEquals(6, commitable(tracker, FIRST));
+    }
+
+    @Test
+    void awaitIdleWaitsForCompletion() throws InterruptedException {
+        OffsetTracker tracker = new OffsetTracker();
+        tracker.track(FIRST, 0);
+        assertFalse(tracker.awaitIdle(10));
+        Thread completer = new Thread(() -> tracker.complete(FIRST, 0));
+        completer.start();
+        assertTrue(tracker.awaitIdle(10_000));
+        completer.join();
+    }
+
+    @Test
+    void removeDropsRevokedRecords() throws InterruptedException {
+        OffsetTracker tracker = new OffsetTracker();
+        tracker.track(FIRST, 0);
+        tracker.track(FIRST, 1);
+        tracker.track(SECOND, 0);
+        tracker.remove(Collections.singleton(FIRST));
+        assertEquals(1, tracker.inFlight());
+        tracker.complete(FIRST, 0);
+        assertEquals(1, tracker.inFlight());
+        tracker.complete(SECOND, 0);
+        assertTrue(tracker.awaitIdle(0));
+        assertFalse(tracker.commitable().containsKey(FIRST));
+    }
+}
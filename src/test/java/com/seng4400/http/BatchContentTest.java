@@ -0,0 +1,70 @@
+package com.seng4400.http;
+
+import com.seng4400.json.Answer;
+import com.seng4400.json.AnswerWriter;
+import com.seng4400.prime.IntSlice;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests checking the body of a batch in both layouts, and that the length sent up front is the length written.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class BatchContentTest {
+
+    private static final Answer FIRST = new Answer(new IntSlice(new int[] {2, 3, 5}, 3), 1);
+    private static final Answer SECOND = new Answer(IntSlice.empty(), 12);
+    private static final String FIRST_JSON = "{\"answer\":[2,3,5],\"time_taken\":1}";
+    private static final String SECOND_JSON = "{\"answer\":[],\"time_taken\":12}";
+
+    /**
+     * Function writes the batch and checks that its length was known in advance.
+     *
+     * @param answers       The answers in the batch
+     * @param format        The layout of the batch
+     * @return              The body written
+     * @throws IOException  Throws if the batch cannot be written
+     */
+    private static String write(List<Answer> answers, BatchContent.Format format) throws IOException {
+        BatchContent content = new BatchContent(new AnswerWriter(false), answers, format);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        content.writeTo(out);
+        assertEquals(out.size(), content.getLength());
+        return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void writesJsonArray() throws IOException {
+        assertEquals("[" + FIRST_JSON + "," + SECOND_JSON + "]",
+                write(Arrays.asList(FIRST, SECOND), BatchContent.Format.JSON));
+        assertEquals("[" + FIRST_JSON + "]", write(Collections.singletonList(FIRST), BatchContent.Format.JSON));
+        assertEquals("[]", write(Collections.emptyList(), BatchContent.Format.JSON));
+    }
+
+    @Test
+    void writesNewlineDelimitedJson() throws IOException {
+        assertEquals(FIRST_JSON + "\n" + SECOND_JSON + "\n",
+                write(Arrays.asList(FIRST, SECOND), BatchContent.Format.NDJSON));
+        assertEquals("", write(Collections.emptyList(), BatchContent.Format.NDJSON));
+    }
+
+    @Test
+    void namesMediaType() {
+        assertEquals("application/json",
+                new BatchContent(new AnswerWriter(false), Collections.emptyList(), BatchContent.Format.JSON).getType());
+        assertEquals("application/x-ndjson",
+                new BatchContent(new AnswerWriter(false), Collections.emptyList(), BatchContent.Format.NDJSON)
+                        .getType());
+    }
+}
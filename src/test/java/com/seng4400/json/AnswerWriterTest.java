@@ -0,0 +1,148 @@
+package com.seng4400.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.seng4400.prime.IntSlice;
+import com.seng4400.prime.SieveEngine;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests checking that the writer produces byte for byte what Gson produces for the same answer, both compact and
+ * pretty printed, and that the compact length it predicts is the length written.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class AnswerWriterTest {
+
+    private static final Gson COMPACT = new Gson();
+    private static final Gson PRETTY = new GsonBuilder().setPrettyPrinting().create();
+
+    private static final IntSlice[] PRIMES = {
+            IntSlice.empty(),
+            new IntSlice(new int[] {2}, 1),
+            new IntSlice(new int[] {2, 3, 5, 7}, 4),
+            new SieveEngine().getPrimes(100_000)                                // Larger than the buffer
+    };
+    private static final long[] TIMES = {0, 7, 1_234_567_890_123L, -1};
+
+    /**
+     * Function writes the answer with the writer.
+     *
+     * @param pretty        Whether to pretty print
+     * @param answer        The answer to write
+     * @return              The text written
+     * @throws IOException  Throws if the answer cannot be written
+     */
+    private static String write(boolean pretty, Answer answer) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new AnswerWriter(pretty).write(out, answer);
+        return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Function builds the tree Gson would serialize for the answer, taking the serialize time from the text written,
+     * since it is only known once the answer is written.
+     *
+     * @param answer        The answer to build
+     * @param written       The text written for the answer
+     * @return              The tree of the answer
+     */
+    private static JsonObject expected(Answer answer, String written) {
+        Schema schema = answer.getSchema();
+        JsonObject json = new JsonObject();
+        JsonArray primes = new JsonArray();
+        for (int i = 0; i < answer.getPrimes().length(); i++)
+            primes.add(answer.getPrimes().get(i));
+        json.add("answer", primes);
+        json.addProperty("time_taken", answer.getTimeTaken());
+        if (schema != Schema.V1)
+            json.addProperty(schema.getTimeTakenField(), schema.convert(answer.getTimeTakenNanos()));
+        Breakdown breakdown = answer.getBreakdown();
+        if (breakdown != null) {
+            String serializeName = "serialize_" + schema.getUnit();
+            JsonObject times = new JsonObject();
+            times.addProperty("compute_" + schema.getUnit(), schema.convert(breakdown.getComputeNanos()));
+            times.addProperty("cache_" + schema.getUnit(), schema.convert(breakdown.getCacheNanos()));
+            times.add(serializeName, JsonParser.parseString(written).getAsJsonObject()
+                    .getAsJsonObject("breakdown").get(serializeName));
+            json.add("breakdown", times);
+        }
+        return json;
+    }
+
+    @Test
+    void matchesGsonForPrimesAndTimes() throws IOException {
+        for (IntSlice primes : PRIMES) {
+            for (long time : TIMES) {
+                Answer answer = new Answer(primes, time);
+                String compact = write(false, answer);
+                assertEquals(COMPACT.toJson(expected(answer, compact)), compact);
+                assertEquals(compact.length(), AnswerWriter.compactLength(answer));
+                String pretty = write(true, answer);
+                assertEquals(PRETTY.toJson(expected(answer, pretty)), pretty);
+            }
+        }
+    }
+
+    @Test
+    void matchesGsonForEverySchema() throws IOException {
+        IntSlice primes = PRIMES[2];
+        for (Schema schema : Schema.values()) {
+            Answer answer = Answer.ofNanos(primes, 12_345_678_901L, null, schema, null);
+            String compact = write(false, answer);
+            assertEquals(COMPACT.toJson(expected(answer, compact)), compact);
+            assertEquals(compact.length(), AnswerWriter.compactLength(answer));
+            String pretty = write(true, answer);
+            assertEquals(PRETTY.toJson(expected(answer, pretty)), pretty);
+        }
+    }
+
+    @Test
+    void matchesGsonWithBreakdown() throws IOException {
+        for (IntSlice primes : PRIMES) {
+            for (Schema schema : Schema.values()) {
+                Answer answer = Answer.ofNanos(primes, 12_345_678_901L, null, schema,
+                        new Breakdown(9_876_543_210L, 1_234_567L));
+                String compact = write(false, answer);
+                assertEquals(COMPACT.toJson(expected(answer, compact)), compact);
+                assertEquals(-1, AnswerWriter.compactLength(answer));
+                assertTrue(compact.length() <= AnswerWriter.maxCompactLength(answer));
+                String pretty = write(true, answer);
+                assertEquals(PRETTY.toJson(expected(answer, pretty)), pretty);
+            }
+        }
+    }
+
+    @Test
+    void writesLongMinValue() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new AnswerWriter(false).write(out, PRIMES[2], Long.MIN_VALUE);
+        assertEquals("{\"answer\":[2,3,5,7],\"time_taken\":-9223372036854775808}",
+                new String(out.toByteArray(), StandardCharsets.US_ASCII));
+        assertEquals(out.size(), AnswerWriter.compactLength(PRIMES[2], Long.MIN_VALUE));
+    }
+
+    @Test
+    void reusesWriterForPrimesWithoutAnswer() throws IOException {
+        AnswerWriter writer = new AnswerWriter(false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(out, PRIMES[3], 1);
+        out.reset();
+        writer.write(out, PRIMES[2], 3);
+        assertEquals("{\"answer\":[2,3,5,7],\"time_taken\":3}",
+                new String(out.toByteArray(), StandardCharsets.US_ASCII));
+        assertEquals(out.size(), AnswerWriter.compactLength(PRIMES[2], 3));
+    }
+}
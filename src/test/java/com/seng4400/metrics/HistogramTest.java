@@ -0,0 +1,70 @@
+package com.seng4400.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests checking the bucket layout of the histogram at its edges, that every value is kept to within 1/64 of itself
+ * and that quantiles are read by rank.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class HistogramTest {
+
+    @Test
+    void smallValuesHaveBucketsOfTheirOwn() {
+        for (long value = 0; value < 128; value++) {
+            assertEquals(value, Histogram.indexOf(value));
+            assertEquals(value, Histogram.middleOf((int) value));
+        }
+    }
+
+    @Test
+    void splitsPowersOfTwoAboveThat() {
+        assertEquals(128, Histogram.indexOf(128));                              // First bucket two wide
+        assertEquals(128, Histogram.indexOf(129));
+        assertEquals(129, Histogram.indexOf(130));
+        assertEquals(128, Histogram.middleOf(128));
+        assertEquals(191, Histogram.indexOf(255));
+        assertEquals(192, Histogram.indexOf(256));                              // First bucket four wide
+        assertEquals(257, Histogram.middleOf(192));
+    }
+
+    @Test
+    void coversEveryPositiveLong() {
+        int last = Histogram.indexOf(Long.MAX_VALUE);
+        assertEquals(58 * 64 - 1, last);                                        // The last bucket
+        long middle = Histogram.middleOf(last);
+        assertTrue(middle > 0 && Long.MAX_VALUE - middle <= Long.MAX_VALUE / 64, "middle " + middle);
+    }
+
+    @Test
+    void keepsValuesWithinOneSixtyFourth() {
+        Random random = new Random(4400);
+        for (int i = 0; i < 100_000; i++) {
+            long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+            long middle = Histogram.middleOf(Histogram.indexOf(value));
+            assertTrue(Math.abs(middle - value) <= value / 64, "value " + value + " read as " + middle);
+        }
+    }
+
+    @Test
+    void readsQuantilesByRank() {
+        Histogram histogram = new Histogram();
+        assertArrayEquals(new long[2], histogram.getQuantiles(0.5, 0.99));      // Nothing recorded
+        for (long value = 100; value >= 1; value--)
+            histogram.record(value);
+        histogram.record(-5);                                                   // Recorded as zero
+        assertEquals(101, histogram.getCount());
+        assertEquals(5050, histogram.getSum());
+        assertEquals(100, histogram.getMax());
+        assertArrayEquals(new long[] {0, 50, 90, 99, 100}, histogram.getQuantiles(0, 0.5, 0.9, 0.99, 1));
+    }
+}
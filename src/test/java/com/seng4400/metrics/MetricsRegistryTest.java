@@ -0,0 +1,49 @@
+package com.seng4400.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests checking the Prometheus text written for counters and histograms.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class MetricsRegistryTest {
+
+    @Test
+    void writesPrometheusText() throws IOException {
+        MetricsRegistry registry = new MetricsRegistry("seng4400_");
+        LongAdder records = registry.counter("records", "Records read");
+        records.add(3);
+        registry.counter("rejected", "Records rejected", () -> 2);
+        Histogram latency = registry.histogram("latency", "Time to answer");
+        latency.record(100);
+        latency.record(20);
+        StringWriter out = new StringWriter();
+        registry.write(out);
+        assertEquals("# HELP seng4400_records_total Records read\n"
+                + "# TYPE seng4400_records_total counter\n"
+                + "seng4400_records_total 3\n"
+                + "# HELP seng4400_rejected_total Records rejected\n"
+                + "# TYPE seng4400_rejected_total counter\n"
+                + "seng4400_rejected_total 2\n"
+                + "# HELP seng4400_latency_seconds Time to answer\n"
+                + "# TYPE seng4400_latency_seconds summary\n"
+                + "seng4400_latency_seconds{quantile=\"0.5\"} 0.000000020\n"
+                + "seng4400_latency_seconds{quantile=\"0.9\"} 0.000000100\n"
+                + "seng4400_latency_seconds{quantile=\"0.99\"} 0.000000100\n"
+                + "seng4400_latency_seconds{quantile=\"0.999\"} 0.000000100\n"
+                + "seng4400_latency_seconds_sum 0.000000120\n"
+                + "seng4400_latency_seconds_count 2\n"
+                + "# HELP seng4400_latency_seconds_max Largest value of seng4400_latency_seconds\n"
+                + "# TYPE seng4400_latency_seconds_max gauge\n"
+                + "seng4400_latency_seconds_max 0.000000100\n", out.toString());
+    }
+}
@@ -0,0 +1,77 @@
+package com.seng4400.prime;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests checking that a batch finds its primes once for every record, answers each record with its own prefix and
+ * shares the time taken to find them between the records.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class CoalescedBatchTest {
+
+    private static final long SLEEP_MILLIS = 40;
+
+    private final PrimeEngine engine = new SieveEngine();
+
+    /**
+     * Engine counting its calls and sleeping on each, so that finding the primes takes a known least time.
+     */
+    private static final class SlowEngine implements PrimeEngine {
+
+        private final PrimeEngine engine = new SieveEngine();
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public IntSlice getPrimes(int max) {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(SLEEP_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return engine.getPrimes(max);
+        }
+    }
+
+    @Test
+    void answersEachRecordWithItsPrefix() {
+        SlowEngine slow = new SlowEngine();
+        CoalescedBatch batch = new CoalescedBatch(new PrimeCache(slow, 0), 1_000, 4);
+        for (int limit : new int[] {1_000, 2, 97, -3})
+            assertEquals(engine.getPrimes(limit), batch.primes(limit).getPrimes(), "limit " + limit);
+        assertEquals(1, slow.calls.get());                                      // Found once for the whole batch
+    }
+
+    @Test
+    void sharesTheCostBetweenRecords() {
+        int records = 4;
+        CoalescedBatch batch = new CoalescedBatch(new PrimeCache(new SlowEngine(), 0), 1_000, records);
+        long startTime = System.nanoTime();
+        long first = batch.primes(500).getNanos();
+        long elapsed = System.nanoTime() - startTime;
+        long floor = TimeUnit.MILLISECONDS.toNanos(SLEEP_MILLIS) / records;
+        assertTrue(first >= floor, "first record charged " + first);
+        assertTrue(first < elapsed, "first record charged the whole " + first);
+        for (int i = 1; i < records; i++) {
+            long nanos = batch.primes(1_000).getNanos();
+            assertTrue(nanos >= floor && nanos < elapsed, "record " + i + " charged " + nanos);
+        }
+    }
+
+    @Test
+    void rejectsLimitAboveTheMax() {
+        CoalescedBatch batch = new CoalescedBatch(new PrimeCache(engine, 0), 100, 1);
+        assertThrows(IllegalArgumentException.class, () -> batch.primes(101));
+        assertThrows(IllegalArgumentException.class, () -> new CoalescedBatch(new PrimeCache(engine, 0), 100, 0));
+    }
+}
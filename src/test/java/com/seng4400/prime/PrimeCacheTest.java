@@ -0,0 +1,90 @@
+package com.seng4400.prime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests checking that the cache answers each max with the same primes as the engine, whether the table is on the
+ * heap, off the heap or kept in a file, and that it only grows the table on a miss.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class PrimeCacheTest {
+
+    private static final int[] MAXES = {-5, 0, 1, 2, 3, 100, 97, 98, 150, 2, 1_000, 999, 10_000, 7_919, 7_920, 50};
+
+    private final PrimeEngine engine = new SieveEngine();
+
+    @Test
+    void prefixMatchesEngine() {
+        PrimeCache cache = new PrimeCache(engine, 5_000);
+        for (int max : MAXES)
+            assertEquals(engine.getPrimes(max), cache.getPrimes(max), "max " + max);
+        assertEquals(10_000, cache.getLimit());
+    }
+
+    @Test
+    void growsOnlyOnMiss() {
+        PrimeCache cache = new PrimeCache(engine, 1_000);
+        cache.getPrimes(100);
+        assertEquals(100, cache.getLimit());
+        cache.getPrimes(150);
+        assertEquals(200, cache.getLimit());                                    // At least doubled
+        cache.getPrimes(200);
+        cache.getPrimes(10);
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.getHits());
+        cache.getPrimes(900);
+        assertEquals(900, cache.getLimit());                                    // Doubling capped at the ceiling
+        cache.getPrimes(1_500);
+        assertEquals(1_500, cache.getLimit());                                  // Past the ceiling, only to the max
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    void offHeapPrefixMatchesEngine() {
+        try (PrimeCache cache = new PrimeCache(engine, 5_000, null,
+                new OffHeapPrimeTable(OffHeapPrimeTable.capacityFor(10_000)))) {
+            for (int max : MAXES)
+                assertEquals(engine.getPrimes(max), cache.getPrimes(max), "max " + max);
+        }
+    }
+
+    @Test
+    void offHeapAboveCapacityUsesEngine() {
+        try (PrimeCache cache = new PrimeCache(engine, 1_000, null, new OffHeapPrimeTable(100))) {
+            assertEquals(engine.getPrimes(100), cache.getPrimes(100));
+            assertEquals(engine.getPrimes(10_000), cache.getPrimes(10_000));
+            assertEquals(100, cache.getPrimes(cache.getLimit()).length());
+            assertEquals(engine.getPrimes(400), cache.getPrimes(400));
+        }
+    }
+
+    @Test
+    void startsFromFile(@TempDir Path directory) {
+        PrimeFile file = new PrimeFile(directory.resolve("primes.bin"));
+        new PrimeCache(engine, 5_000, file).getPrimes(5_000);
+        PrimeCache restarted = new PrimeCache(engine, 5_000, file);
+        assertEquals(5_000, restarted.getLimit());
+        for (int max : MAXES) {
+            if (max <= 5_000)
+                assertEquals(engine.getPrimes(max), restarted.getPrimes(max), "max " + max);
+        }
+        assertEquals(0, restarted.getMisses());
+    }
+
+    @Test
+    void closedCacheThrows() {
+        PrimeCache cache = new PrimeCache(engine, 1_000);
+        cache.getPrimes(100);
+        cache.close();
+        assertThrows(IllegalStateException.class, () -> cache.getPrimes(100));
+    }
+}
@@ -0,0 +1,94 @@
+package com.seng4400.prime;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests checking the sieve engines against the trial division engine, both for every max up to a small bound, so
+ * that every word, block and chunk edge is crossed, and for each max around one million.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class PrimeEngineTest {
+
+    private static final int SMALL_MAX = 2_000;
+    private static final int[] LARGE_MAXES = {999_982, 999_983, 999_984, 999_999, 1_000_000, 1_000_001, 1_000_003};
+
+    private static ForkJoinPool pool;
+    private static IntSlice small;
+    private static IntSlice large;
+
+    @BeforeAll
+    static void setUp() {
+        pool = new ForkJoinPool(4);
+        TrialDivisionEngine reference = new TrialDivisionEngine();
+        small = reference.getPrimes(SMALL_MAX);
+        large = reference.getPrimes(LARGE_MAXES[LARGE_MAXES.length - 1]);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Function returns every engine under test, including ones with tiny blocks and no threshold so that the block
+     * and chunk joins are crossed many times even by a small max.
+     *
+     * @return              The engines to check
+     */
+    private static List<PrimeEngine> engines() {
+        List<PrimeEngine> engines = new ArrayList<>();
+        engines.add(new SieveEngine());
+        engines.add(new SegmentedSieveEngine());
+        engines.add(new SegmentedSieveEngine(8));
+        engines.add(new ParallelSieveEngine(pool, 0, SegmentedSieveEngine.DEFAULT_SEGMENT_BYTES));
+        engines.add(new ParallelSieveEngine(pool, 0, 8));
+        return engines;
+    }
+
+    @Test
+    void matchesTrialDivisionForEverySmallMax() {
+        for (PrimeEngine engine : engines()) {
+            String name = engine.getClass().getSimpleName();
+            for (int max = -1; max <= SMALL_MAX; max++)
+                assertEquals(small.prefix(small.countAtMost(max)), engine.getPrimes(max), name + " max " + max);
+        }
+    }
+
+    @Test
+    void matchesTrialDivisionAroundOneMillion() {
+        for (PrimeEngine engine : engines()) {
+            String name = engine.getClass().getSimpleName();
+            for (int max : LARGE_MAXES)
+                assertEquals(large.prefix(large.countAtMost(max)), engine.getPrimes(max), name + " max " + max);
+        }
+    }
+
+    @Test
+    void countsPrimesUpToOneMillion() {
+        assertEquals(78_498, new ParallelSieveEngine(pool, 0, 8).getPrimes(1_000_000).length());
+    }
+
+    @Test
+    void closesOnlyTheDedicatedPool() {
+        ParallelSieveEngine given = new ParallelSieveEngine(pool, 0, 8);
+        given.close();
+        assertEquals(1_229, given.getPrimes(10_000).length());                  // The given pool is still running
+        ParallelSieveEngine dedicated = new ParallelSieveEngine(2, 0, 8);
+        assertEquals(1_229, dedicated.getPrimes(10_000).length());
+        dedicated.close();
+        assertThrows(RejectedExecutionException.class, () -> dedicated.getPrimes(10_000));
+    }
+}
@@ -0,0 +1,186 @@
+package com.seng4400.prime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests checking that a table written to the file reads back the same, grows by appending, that instances for the
+ * same file can be used at once, and that a file which is cut short or fails a checksum is read as no table and
+ * rebuilt by the next append.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class PrimeFileTest {
+
+    private final PrimeEngine engine = new SieveEngine();
+
+    @TempDir
+    Path directory;
+
+    private PrimeFile file;
+
+    @BeforeEach
+    void setUp() {
+        file = new PrimeFile(directory.resolve("primes.bin"));
+    }
+
+    /**
+     * Method overwrites one byte of the file with its complement.
+     *
+     * @param position      The position of the byte
+     * @throws IOException  Throws if the file cannot be written
+     */
+    private void flip(long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.getPath(), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, position);
+            value.put(0, (byte) ~value.get(0)).rewind();
+            channel.write(value, position);
+        }
+    }
+
+    /**
+     * Method checks that the file holds every prime up to the limit.
+     *
+     * @param limit         The limit the file should hold
+     * @throws IOException  Throws if the file cannot be read
+     */
+    private void assertHolds(int limit) throws IOException {
+        PrimeFile.Contents contents = file.read();
+        assertEquals(limit, contents.getLimit());
+        assertEquals(engine.getPrimes(limit), contents.getPrimes());
+        assertEquals(limit, file.readLimit());
+    }
+
+    @Test
+    void missingFileHasNoTable() throws IOException {
+        assertNull(file.read());
+        assertEquals(0, file.readLimit());
+    }
+
+    @Test
+    void roundTrips() throws IOException {
+        file.append(engine.getPrimes(100_000), 100_000);
+        assertHolds(100_000);
+        assertEquals(PrimeFile.HEADER_BYTES + 4L * engine.getPrimes(100_000).length(), Files.size(file.getPath()));
+    }
+
+    @Test
+    void growsByAppending() throws IOException {
+        file.append(engine.getPrimes(1_000), 1_000);
+        file.append(engine.getPrimes(500_000), 500_000);
+        assertHolds(500_000);
+        file.append(engine.getPrimes(10_000), 10_000);                          // Already grown as far
+        assertHolds(500_000);
+    }
+
+    @Test
+    void readsIntoOffHeapTable() throws IOException {
+        file.append(engine.getPrimes(10_000), 10_000);
+        try (OffHeapPrimeTable table = new OffHeapPrimeTable(OffHeapPrimeTable.capacityFor(10_000))) {
+            PrimeFile.Contents contents = file.read(table);
+            assertEquals(10_000, contents.getLimit());
+            assertEquals(engine.getPrimes(10_000), contents.getPrimes());
+        }
+        try (OffHeapPrimeTable table = new OffHeapPrimeTable(100)) {           // Too small for the whole file
+            PrimeFile.Contents contents = file.read(table);
+            assertEquals(engine.getPrimes(541), contents.getPrimes());
+            assertEquals(541, contents.getLimit());
+        }
+    }
+
+    @Test
+    void sharesTheFileBetweenInstances() throws Exception {
+        file.append(engine.getPrimes(10_000), 10_000);
+        PrimeFile other = new PrimeFile(directory.resolve(".").resolve("primes.bin"));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                PrimeFile shared = i % 2 == 0 ? file : other;
+                int limit = 20_000 * (i + 1);
+                tasks.add(executor.submit(() -> {
+                    for (int j = 0; j < 50; j++) {                              // Locks overlap unless shared
+                        shared.readLimit();
+                        shared.read();
+                        shared.append(engine.getPrimes(limit), limit);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks)
+                task.get(1, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdown();
+        }
+        assertHolds(80_000);
+    }
+
+    @Test
+    void corruptPrimesAreRebuilt() throws IOException {
+        file.append(engine.getPrimes(1_000), 1_000);
+        flip(PrimeFile.HEADER_BYTES + 4 * 10);
+        assertNull(file.read());
+        file.append(engine.getPrimes(2_000), 2_000);                            // Not grown from the corrupt primes
+        assertHolds(2_000);
+    }
+
+    @Test
+    void corruptPrimesAreRebuiltAtTheSameLimit() throws IOException {
+        file.append(engine.getPrimes(1_000), 1_000);
+        flip(PrimeFile.HEADER_BYTES + 4 * 10);
+        file.append(engine.getPrimes(1_000), 1_000);
+        assertHolds(1_000);
+    }
+
+    @Test
+    void corruptHeaderIsRebuilt() throws IOException {
+        file.append(engine.getPrimes(1_000), 1_000);
+        flip(8);
+        assertNull(file.read());
+        assertEquals(0, file.readLimit());
+        file.append(engine.getPrimes(1_000), 1_000);
+        assertHolds(1_000);
+    }
+
+    @Test
+    void tornFileIsRebuilt() throws IOException {
+        file.append(engine.getPrimes(1_000), 1_000);
+        try (FileChannel channel = FileChannel.open(file.getPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 4);
+        }
+        assertNull(file.read());
+        assertEquals(0, file.readLimit());
+        file.append(engine.getPrimes(3_000), 3_000);
+        assertHolds(3_000);
+    }
+
+    @Test
+    void shortFileHasNoTable() throws IOException {
+        Files.write(file.getPath(), new byte[PrimeFile.HEADER_BYTES - 1]);
+        assertNull(file.read());
+        assertEquals(0, file.readLimit());
+        file.append(engine.getPrimes(100), 100);
+        assertHolds(100);
+    }
+}
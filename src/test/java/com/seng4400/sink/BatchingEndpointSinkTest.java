@@ -0,0 +1,170 @@
+package com.seng4400.sink;
+
+import com.google.gson.JsonParser;
+import com.seng4400.http.BatchContent;
+import com.seng4400.http.EndpointClient;
+import com.seng4400.json.Answer;
+import com.seng4400.metrics.Histogram;
+import com.seng4400.prime.IntSlice;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests checking that a batch is posted once it lingers, without waiting for it to fill, and how the response to a
+ * batch is mapped onto the outcome of each of its answers.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class BatchingEndpointSinkTest {
+
+    private HttpServer server;
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] buffer = new byte[8192];
+                for (int read = in.read(buffer); read != -1; read = in.read(buffer))
+                    body.write(buffer, 0, read);
+            }
+            bodies.add(new String(body.toByteArray(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    /**
+     * Function returns a sink posting to the stub server with a single sender and batches of up to 100 answers.
+     *
+     * @param lingerMillis  The time the first answer of a batch waits before the batch is closed
+     * @return              The sink
+     * @throws IOException  Throws if the client cannot be created
+     */
+    private BatchingEndpointSink sink(long lingerMillis) throws IOException {
+        EndpointClient endpoint = new EndpointClient("http://localhost:" + server.getAddress().getPort() + "/", 1, 60,
+                0, new Histogram(), false);
+        return new BatchingEndpointSink(endpoint, 1, 1_000, 100, 1 << 20, lingerMillis, BatchContent.Format.NDJSON);
+    }
+
+    /**
+     * Function submits the answers to the sink and waits for every one of them to be reported, without closing it.
+     *
+     * @param sink          The sink to submit to
+     * @param answers       The number of answers to submit
+     * @return              The errors reported, in the order they were reported
+     * @throws Exception    Throws if the answers are not reported within ten seconds
+     */
+    private static List<Exception> submit(BatchingEndpointSink sink, int answers) throws Exception {
+        CountDownLatch done = new CountDownLatch(answers);
+        List<Exception> errors = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < answers; i++) {
+            sink.submit(new Answer(IntSlice.empty(), i), (answer, error) -> {
+                errors.add(error);
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));                           // Sent long before the sink closes
+        return errors;
+    }
+
+    @Test
+    void postsBatchOnceItLingers() throws Exception {
+        try (BatchingEndpointSink sink = sink(50)) {
+            List<Exception> errors = submit(sink, 3);
+            assertEquals(3, errors.size());
+            for (Exception error : errors)
+                assertNull(error);
+        }
+        assertEquals(1, bodies.size());                                         // Three answers, one request
+        assertEquals(3, bodies.get(0).split("\n").length);
+    }
+
+    @Test
+    void postsWithoutLinger() throws Exception {
+        try (BatchingEndpointSink sink = sink(0)) {
+            assertNull(submit(sink, 1).get(0));
+        }
+        assertEquals(1, bodies.size());
+    }
+
+    /**
+     * Function returns the error the sink gives an answer with the status object.
+     *
+     * @param status        The status object as JSON text
+     * @return              The error, or null if the answer was accepted
+     */
+    private static Exception itemError(String status) {
+        return BatchingEndpointSink.itemError(JsonParser.parseString(status));
+    }
+
+    @Test
+    void readsOneStatusPerAnswer() {
+        String response = "[{\"status\":200},{\"status\":500,\"error\":\"boom\"},{\"status\":201}]";
+        assertEquals(3, BatchingEndpointSink.itemStatuses(response, 3).size());
+    }
+
+    @Test
+    void appliesOtherResponsesToTheWholeBatch() {
+        assertNull(BatchingEndpointSink.itemStatuses(null, 2));
+        assertNull(BatchingEndpointSink.itemStatuses("", 2));
+        assertNull(BatchingEndpointSink.itemStatuses("OK", 2));
+        assertNull(BatchingEndpointSink.itemStatuses("{\"status\":200}", 1));
+        assertNull(BatchingEndpointSink.itemStatuses("[{\"status\":200}]", 2));         // One status short
+        assertNull(BatchingEndpointSink.itemStatuses("[{\"status\":200},", 1));         // Cut short
+    }
+
+    @Test
+    void acceptsSuccessfulStatuses() {
+        assertNull(itemError("{\"status\":200}"));
+        assertNull(itemError("{\"status\":204}"));
+        assertNull(itemError("{\"status\":299,\"error\":\"ignored\"}"));
+    }
+
+    @Test
+    void rejectsFailedStatuses() {
+        Exception error = itemError("{\"status\":422,\"error\":\"limit too large\"}");
+        assertTrue(error instanceof BatchItemException);
+        assertEquals("Answer rejected with status 422: limit too large", error.getMessage());
+        Exception noMessage = itemError("{\"status\":300}");
+        assertNotNull(noMessage);
+        assertEquals("Answer rejected with status 300", noMessage.getMessage());
+    }
+
+    @Test
+    void acceptsItemsWithoutAStatus() {
+        assertNull(itemError("null"));
+        assertNull(itemError("\"failed\""));
+        assertNull(itemError("{}"));
+        assertNull(itemError("{\"status\":\"500\"}"));
+        assertNull(itemError("{\"status\":{\"code\":500}}"));
+    }
+}
@@ -0,0 +1,122 @@
+package com.seng4400.sink;
+
+import com.seng4400.consumer.Limit;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests checking that every rejected record is counted by its reason and written with the bytes of its value.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class DeadLetterSinkTest {
+
+    /**
+     * Sink keeping the reason and value of every record written to it, and throwing once it is told to fail.
+     */
+    private static final class RecordingSink extends DeadLetterSink {
+
+        private final List<RejectReason> reasons = new ArrayList<>();
+        private final List<byte[]> values = new ArrayList<>();
+        private RuntimeException failure;
+
+        @Override
+        protected void write(ConsumerRecord<?, Limit> record, RejectReason reason, byte[] value,
+                             DeadLetterCallback callback) {
+            if (failure != null)
+                throw failure;
+            reasons.add(reason);
+            values.add(value);
+            callback.onComplete(null);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Callback keeping the outcome of every write it is told of.
+     */
+    static final class Outcomes implements DeadLetterCallback {
+
+        final List<Exception> errors = new ArrayList<>();
+
+        @Override
+        public void onComplete(Exception error) {
+            errors.add(error);
+        }
+    }
+
+    /**
+     * Function returns a record holding the limit.
+     *
+     * @param limit         The value of the record
+     * @return              The record
+     */
+    static ConsumerRecord<String, Limit> record(Limit limit) {
+        return new ConsumerRecord<>("questions", 3, 42, "key", limit);
+    }
+
+    @Test
+    void countsRejectionsByReason() {
+        RecordingSink sink = new RecordingSink();
+        Outcomes outcomes = new Outcomes();
+        sink.reject(record(null), RejectReason.MISSING, outcomes);
+        sink.reject(record(Limit.of(2_000_000)), RejectReason.OUT_OF_RANGE, outcomes);
+        sink.reject(record(Limit.of(3_000_000)), RejectReason.OUT_OF_RANGE, outcomes);
+        assertEquals(1, sink.getRejected(RejectReason.MISSING));
+        assertEquals(2, sink.getRejected(RejectReason.OUT_OF_RANGE));
+        assertEquals(0, sink.getRejected(RejectReason.MALFORMED));
+        Map<RejectReason, Long> rejected = sink.getRejected();
+        assertEquals(RejectReason.values().length, rejected.size());            // Every reason, even when zero
+        assertEquals(2L, rejected.get(RejectReason.OUT_OF_RANGE));
+        assertEquals(0L, rejected.get(RejectReason.OVERFLOW));
+        assertEquals(3, sink.getRejectedTotal());
+        assertEquals(3, sink.reasons.size());
+        assertEquals(Arrays.asList(null, null, null), outcomes.errors);
+    }
+
+    @Test
+    void writesTheValueOfTheRecord() {
+        RecordingSink sink = new RecordingSink();
+        Outcomes outcomes = new Outcomes();
+        byte[] raw = "12a".getBytes(StandardCharsets.US_ASCII);
+        sink.reject(record(Limit.invalid(Limit.Error.MALFORMED, raw)), RejectReason.MALFORMED, outcomes);
+        sink.reject(record(Limit.of(2_000_000)), RejectReason.OUT_OF_RANGE, outcomes);
+        sink.reject(record(null), RejectReason.MISSING, outcomes);
+        assertArrayEquals(raw, sink.values.get(0));
+        assertArrayEquals("2000000".getBytes(StandardCharsets.US_ASCII), sink.values.get(1));   // Rebuilt
+        assertNull(sink.values.get(2));
+    }
+
+    @Test
+    void reportsWritesThatThrow() {
+        RecordingSink sink = new RecordingSink();
+        Outcomes outcomes = new Outcomes();
+        sink.failure = new IllegalStateException("producer closed");
+        sink.reject(record(null), RejectReason.MISSING, outcomes);
+        assertEquals(Collections.singletonList(sink.failure), outcomes.errors);
+        assertEquals(1, sink.getRejected(RejectReason.MISSING));                // Counted even though not written
+    }
+
+    @Test
+    void mapsLimitErrorsToReasons() {
+        assertEquals(RejectReason.MISSING, RejectReason.of(Limit.Error.MISSING));
+        assertEquals(RejectReason.OVERFLOW, RejectReason.of(Limit.Error.OVERFLOW));
+        assertEquals(RejectReason.MALFORMED, RejectReason.of(Limit.Error.MALFORMED));
+    }
+}
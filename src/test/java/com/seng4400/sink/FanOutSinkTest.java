@@ -0,0 +1,133 @@
+package com.seng4400.sink;
+
+import com.seng4400.json.Answer;
+import com.seng4400.json.Schema;
+import com.seng4400.prime.IntSlice;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests checking that an answer fanned out to two sinks completes once, after both sinks, and fails if either failed.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class FanOutSinkTest {
+
+    private static final Answer ANSWER = Answer.ofNanos(IntSlice.empty(), 1_000_000, "key", Schema.V1, null);
+
+    /**
+     * Sink holding every callback until the test completes it, and failing on close when asked.
+     */
+    private static final class HeldSink implements AnswerSink {
+
+        private final List<SendCallback> callbacks = new ArrayList<>();
+        private boolean capacity = true;
+        private boolean terminated = true;
+        private boolean closed;
+        private boolean failClose;
+
+        @Override
+        public void submit(Answer answer, SendCallback callback) {
+            callbacks.add(callback);
+        }
+
+        @Override
+        public boolean hasCapacity(int answers) {
+            return capacity;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return terminated;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            if (failClose)
+                throw new IOException("close failed");
+        }
+    }
+
+    /**
+     * Callback keeping every completion it is given.
+     */
+    private static final class Completions implements SendCallback {
+
+        private final List<Exception> errors = new ArrayList<>();
+
+        @Override
+        public void onComplete(Answer answer, Exception error) {
+            assertSame(ANSWER, answer);
+            errors.add(error);
+        }
+    }
+
+    @Test
+    void completesOnceBothSinksHave() throws InterruptedException {
+        HeldSink first = new HeldSink();
+        HeldSink second = new HeldSink();
+        Completions completions = new Completions();
+        new FanOutSink(first, second).submit(ANSWER, completions);
+        second.callbacks.get(0).onComplete(ANSWER, null);
+        assertTrue(completions.errors.isEmpty());                               // Still waiting on the first sink
+        first.callbacks.get(0).onComplete(ANSWER, null);
+        assertEquals(1, completions.errors.size());
+        assertNull(completions.errors.get(0));
+    }
+
+    @Test
+    void failsIfEitherSinkFails() throws InterruptedException {
+        HeldSink first = new HeldSink();
+        HeldSink second = new HeldSink();
+        Completions completions = new Completions();
+        new FanOutSink(first, second).submit(ANSWER, completions);
+        Exception error = new IOException("endpoint down");
+        first.callbacks.get(0).onComplete(ANSWER, error);
+        second.callbacks.get(0).onComplete(ANSWER, null);
+        assertEquals(1, completions.errors.size());
+        assertSame(error, completions.errors.get(0));
+    }
+
+    @Test
+    void hasCapacityOnlyIfBothSinksHave() {
+        HeldSink first = new HeldSink();
+        HeldSink second = new HeldSink();
+        FanOutSink sink = new FanOutSink(first, second);
+        assertTrue(sink.hasCapacity(1));
+        second.capacity = false;
+        assertFalse(sink.hasCapacity(1));
+    }
+
+    @Test
+    void terminatedOnlyOnceBothSinksAre() {
+        HeldSink first = new HeldSink();
+        HeldSink second = new HeldSink();
+        FanOutSink sink = new FanOutSink(first, second);
+        assertTrue(sink.isTerminated());
+        first.terminated = false;
+        assertFalse(sink.isTerminated());
+    }
+
+    @Test
+    void closesBothSinks() {
+        HeldSink first = new HeldSink();
+        HeldSink second = new HeldSink();
+        first.failClose = true;
+        assertThrows(IOException.class, () -> new FanOutSink(first, second).close());
+        assertTrue(first.closed);
+        assertTrue(second.closed);                                              // Closed even though the first failed
+    }
+}
@@ -0,0 +1,95 @@
+package com.seng4400.sink;
+
+import com.seng4400.consumer.Limit;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests checking that each rejected record is produced to the dead letter topic with its key and value kept and its
+ * reason and source added as headers, that its outcome is only reported once the topic has acknowledged it, and that
+ * a send without a broker fails quickly rather than holding up the poll thread.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class KafkaDeadLetterSinkTest {
+
+    /**
+     * Function returns the value of a header as text.
+     *
+     * @param record        The produced record
+     * @param key           The name of the header
+     * @return              The value of the header
+     */
+    private static String header(ProducerRecord<String, byte[]> record, String key) {
+        Header header = record.headers().lastHeader(key);
+        return new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void producesRecordWithHeaders() {
+        MockProducer<String, byte[]> producer =
+                new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer());
+        DeadLetterSinkTest.Outcomes outcomes = new DeadLetterSinkTest.Outcomes();
+        try (KafkaDeadLetterSink sink = new KafkaDeadLetterSink(producer, "dead-letters")) {
+            sink.reject(DeadLetterSinkTest.record(Limit.of(5_000_000)), RejectReason.OUT_OF_RANGE, outcomes);
+            assertEquals(1, sink.getRejected(RejectReason.OUT_OF_RANGE));
+        }
+        assertEquals(Collections.singletonList(null), outcomes.errors);
+        assertTrue(producer.closed());
+        List<ProducerRecord<String, byte[]>> sent = producer.history();
+        assertEquals(1, sent.size());
+        ProducerRecord<String, byte[]> record = sent.get(0);
+        assertEquals("dead-letters", record.topic());
+        assertEquals("key", record.key());
+        assertArrayEquals("5000000".getBytes(StandardCharsets.US_ASCII), record.value());
+        assertEquals("OUT_OF_RANGE", header(record, "reason"));
+        assertEquals("questions", header(record, "source.topic"));
+        assertEquals("3", header(record, "source.partition"));
+        assertEquals("42", header(record, "source.offset"));
+    }
+
+    @Test
+    void reportsOutcomeOnceAcknowledged() {
+        MockProducer<String, byte[]> producer =
+                new MockProducer<>(false, new StringSerializer(), new ByteArraySerializer());
+        DeadLetterSinkTest.Outcomes outcomes = new DeadLetterSinkTest.Outcomes();
+        KafkaDeadLetterSink sink = new KafkaDeadLetterSink(producer, "dead-letters");
+        sink.reject(DeadLetterSinkTest.record(null), RejectReason.MISSING, outcomes);
+        sink.reject(DeadLetterSinkTest.record(null), RejectReason.MISSING, outcomes);
+        assertTrue(outcomes.errors.isEmpty());                                  // Not written until acknowledged
+        producer.completeNext();
+        RuntimeException failure = new RuntimeException("not enough replicas");
+        producer.errorNext(failure);
+        assertEquals(Arrays.asList(null, failure), outcomes.errors);
+    }
+
+    @Test
+    void givesUpQuicklyWithoutABroker() {
+        DeadLetterSinkTest.Outcomes outcomes = new DeadLetterSinkTest.Outcomes();
+        long start = System.nanoTime();
+        try (KafkaDeadLetterSink sink = new KafkaDeadLetterSink("127.0.0.1:1", "dead-letters")) {
+            sink.reject(DeadLetterSinkTest.record(null), RejectReason.MISSING, outcomes);
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(elapsed < TimeUnit.MILLISECONDS.toNanos(10 * KafkaDeadLetterSink.MAX_BLOCK_MILLIS));
+        assertEquals(1, outcomes.errors.size());
+        assertNotNull(outcomes.errors.get(0));                                  // The metadata never arrived
+    }
+}
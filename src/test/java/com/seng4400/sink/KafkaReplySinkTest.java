@@ -0,0 +1,71 @@
+package com.seng4400.sink;
+
+import com.seng4400.json.Answer;
+import com.seng4400.json.AnswerSerializer;
+import com.seng4400.json.Schema;
+import com.seng4400.prime.SieveEngine;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests checking that each answer is produced to the reply topic keyed by its request, and that the outcome of the
+ * send is passed on to the callback.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class KafkaReplySinkTest {
+
+    private static final Answer ANSWER = Answer.ofNanos(new SieveEngine().getPrimes(10), 3_000_000, "request-7",
+            Schema.V1, null);
+
+    @Test
+    void producesAnswerKeyedByRequest() {
+        MockProducer<String, Answer> producer =
+                new MockProducer<>(true, new StringSerializer(), new AnswerSerializer());
+        List<Exception> errors = new ArrayList<>();
+        try (KafkaReplySink sink = new KafkaReplySink(producer, "answers")) {
+            sink.submit(ANSWER, (answer, error) -> errors.add(error));
+        }
+        assertTrue(producer.closed());
+        assertEquals(1, errors.size());
+        assertNull(errors.get(0));
+        ProducerRecord<String, Answer> record = producer.history().get(0);
+        assertEquals("answers", record.topic());
+        assertEquals("request-7", record.key());
+        assertSame(ANSWER, record.value());
+    }
+
+    @Test
+    void passesOnFailedSends() {
+        MockProducer<String, Answer> producer =
+                new MockProducer<>(false, new StringSerializer(), new AnswerSerializer());
+        List<Exception> errors = new ArrayList<>();
+        KafkaReplySink sink = new KafkaReplySink(producer, "answers");
+        sink.submit(ANSWER, (answer, error) -> errors.add(error));
+        assertTrue(errors.isEmpty());                                           // Not complete until the broker replies
+        RuntimeException failure = new RuntimeException("broker down");
+        producer.errorNext(failure);
+        assertEquals(1, errors.size());
+        assertSame(failure, errors.get(0));
+    }
+
+    @Test
+    void serializesCompactJson() {
+        byte[] bytes = new AnswerSerializer().serialize("answers", ANSWER);
+        assertEquals("{\"answer\":[2,3,5,7],\"time_taken\":3}", new String(bytes, StandardCharsets.US_ASCII));
+        assertNull(new AnswerSerializer().serialize("answers", null));
+    }
+}
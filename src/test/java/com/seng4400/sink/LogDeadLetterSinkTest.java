@@ -0,0 +1,57 @@
+package com.seng4400.sink;
+
+import com.seng4400.consumer.Limit;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests checking the line written for each rejected record, and that a line which cannot be written is reported.
+ *
+ * @author  Sean Crocker
+ * @version 1.0
+ * @since   01/06/2022
+ */
+public class LogDeadLetterSinkTest {
+
+    @Test
+    void writesOneLinePerRecord() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DeadLetterSinkTest.Outcomes outcomes = new DeadLetterSinkTest.Outcomes();
+        try (LogDeadLetterSink sink = new LogDeadLetterSink(new PrintStream(bytes, true, "UTF-8"))) {
+            byte[] raw = "-7x".getBytes(StandardCharsets.US_ASCII);
+            sink.reject(DeadLetterSinkTest.record(Limit.invalid(Limit.Error.MALFORMED, raw)), RejectReason.MALFORMED,
+                    outcomes);
+            sink.reject(DeadLetterSinkTest.record(null), RejectReason.MISSING, outcomes);
+            assertEquals(2, sink.getRejectedTotal());
+        }
+        assertEquals(Arrays.asList(null, null), outcomes.errors);
+        String[] lines = new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\\R");
+        assertEquals(2, lines.length);
+        assertEquals("dead-letter questions-3@42 MALFORMED -7x", lines[0]);
+        assertEquals("dead-letter questions-3@42 MISSING null", lines[1]);
+    }
+
+    @Test
+    void reportsFailedWrites() {
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("disk full");
+            }
+        };
+        DeadLetterSinkTest.Outcomes outcomes = new DeadLetterSinkTest.Outcomes();
+        LogDeadLetterSink sink = new LogDeadLetterSink(new PrintStream(broken, true));
+        sink.reject(DeadLetterSinkTest.record(null), RejectReason.MISSING, outcomes);
+        assertEquals(1, outcomes.errors.size());
+        assertTrue(outcomes.errors.get(0) instanceof IOException);
+    }
+}